@@ -0,0 +1,53 @@
+#!/bin/bash
+
+# Launches a local sharded deployment: several shard processes on this host
+# plus an interactive coordinator in the foreground.
+#
+# Usage: ./run-cluster.sh [partitions] [rooms-per-partition] [base-port] [replicas]
+#
+# With replicas > 1 every partition is served by that many identical shard
+# processes; the first is the primary and the others are standbys.
+
+PARTITIONS=${1:-3}
+ROOMS=${2:-4}
+BASE_PORT=${3:-7100}
+REPLICAS=${4:-1}
+JAR=${JAR:-build/libs/apartment-building.jar}
+
+if [ ! -f "$JAR" ]; then
+    echo "Error: $JAR not found, build it first with ./gradlew build"
+    exit 1
+fi
+
+PIDS=()
+ENDPOINTS=()
+
+cleanup() {
+    echo "Stopping shards..."
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null
+    done
+}
+trap cleanup EXIT
+
+for ((p = 0; p < PARTITIONS; p++)); do
+    for ((r = 0; r < REPLICAS; r++)); do
+        PORT=$((BASE_PORT + p * REPLICAS + r))
+        LOG="shard-$p.log"
+        if [ "$REPLICAS" -gt 1 ]; then
+            LOG="shard-$p-$r.log"
+        fi
+        # Each partition plays one floor, so apartment numbers stay unique building-wide;
+        # replicas of a partition must be launched with identical arguments
+        java -Dapartment.starting.number=$(( (p + 1) * 100 + 1 )) -cp "$JAR" cluster.ShardServer "$p" "$PORT" "$ROOMS" 1 > "$LOG" 2>&1 &
+        PIDS+=($!)
+        ENDPOINTS+=("$p@127.0.0.1:$PORT")
+        echo "Started shard $p replica $r on port $PORT (pid $!, log $LOG)"
+    done
+done
+
+# Give the shards a moment to bind their sockets
+sleep 1
+
+echo "Coordinator ready. Commands: set <temp>, rooms, room <partition> <id>, add-apartment <owner>, add-common <type>, status, quit"
+java -cp "$JAR" cluster.Coordinator "${ENDPOINTS[@]}"
@@ -1,8 +1,13 @@
 import models.*;
+import export.RoomStateExporter;
 import gui.BuildingGUI;
+import utils.PropertyLoader;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         // Create the building with initial requested temperature
         Building building = new Building(25.0);
 
@@ -17,6 +22,12 @@ public class Main {
         // Start periodic recalculation
         building.startRecalculationTask();
 
+        // Publish room state to shared memory for external readers, if enabled
+        if (Boolean.parseBoolean(PropertyLoader.getProperty("export.enabled"))) {
+            new RoomStateExporter(building, Paths.get(PropertyLoader.getProperty("export.file")),
+                    PropertyLoader.getIntProperty("export.capacity")).start();
+        }
+
         // Launch GUI
         new BuildingGUI(building);
     }
@@ -0,0 +1,527 @@
+package cluster;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import models.CommonRoom;
+import utils.PropertyLoader;
+
+/**
+ * Lightweight router in front of a set of shard processes.
+ *
+ * Rooms are partitioned across shards by partition id, and a room is addressed
+ * globally by its (partition, room id) pair. The coordinator routes writes to the
+ * owning partition, fans building-wide setpoint changes out to every partition and
+ * merges query results.
+ *
+ * Each partition may be served by several endpoints. The coordinator numbers every
+ * write to a partition, assigns the ids of new rooms itself and keeps a log of the
+ * partition's writes, so an endpoint that missed writes while it was down or was
+ * restarted has them replayed before it is written to or read from again. Reads
+ * fall through to the next endpoint when one is down or cannot be brought up to
+ * date, so a single shard process dying does not take its rooms offline.
+ * The log lives in coordinator memory only: endpoints that are behind when the
+ * coordinator starts cannot be caught up and are left out until restarted alongside it.
+ *
+ * A run of setpoint changes is kept as the last change alone, so the log grows only
+ * with room additions, and it is capped at 'coordinator.write.log.max.entries'
+ * entries. An endpoint that falls behind the oldest entry left in the log is reported
+ * and must be restarted together with the coordinator to be used again.
+ */
+public class Coordinator {
+    /** Partitions by id */
+    private final Map<Integer, Partition> partitions = new TreeMap<>();
+
+    private final int maxLogEntries;
+
+    /**
+     * Constructs a new Coordinator with no shards.
+     * The write log cap is taken from the 'coordinator.write.log.max.entries' property.
+     */
+    public Coordinator() {
+        this.maxLogEntries = PropertyLoader.getIntProperty("coordinator.write.log.max.entries");
+    }
+
+    /**
+     * Registers a shard endpoint serving the given partition.
+     * Endpoints registered later for the same partition act as standbys.
+     * @param partitionId The partition served by the endpoint
+     * @param host The shard host name or address
+     * @param port The shard TCP port
+     */
+    public synchronized void addShard(int partitionId, String host, int port) {
+        partitions.computeIfAbsent(partitionId, Partition::new).endpoints
+                .add(new ShardClient(partitionId, host, port));
+    }
+
+    /**
+     * @return The ids of all registered partitions in ascending order
+     */
+    public synchronized List<Integer> getPartitionIds() {
+        return new ArrayList<>(partitions.keySet());
+    }
+
+    /**
+     * Updates the target temperature on every shard.
+     * @param requestedTemperature The new target temperature
+     * @return The number of partitions on which at least one endpoint applied the change
+     */
+    public int setRequestedTemperature(double requestedTemperature) {
+        int applied = 0;
+        for (Partition partition : partitions()) {
+            try {
+                write(partition, false, (firstSequence, sequence, roomId) -> client -> {
+                    client.setRequestedTemperature(firstSequence, sequence, requestedTemperature);
+                    return null;
+                });
+                applied++;
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Collects the rooms of every reachable partition.
+     * Partitions with no reachable, up-to-date endpoint are left out of the result.
+     * @return Snapshots of all reachable rooms, ordered by partition
+     */
+    public List<RoomSnapshot> getRooms() {
+        List<RoomSnapshot> rooms = new ArrayList<>();
+        for (Partition partition : partitions()) {
+            try {
+                rooms.addAll(read(partition, ShardClient::listRooms));
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Looks up a single room on its owning partition.
+     * @param partitionId The partition owning the room
+     * @param roomId The room identifier within the partition
+     * @return A snapshot of the room, or null if it does not exist
+     * @throws IOException if no endpoint of the partition is reachable and up to date
+     * @throws IllegalArgumentException if the partition is unknown
+     */
+    public RoomSnapshot getRoom(int partitionId, int roomId) throws IOException {
+        return read(partition(partitionId), client -> client.getRoom(roomId));
+    }
+
+    /**
+     * Adds an apartment to the least loaded reachable partition.
+     * @param ownerName The name of the apartment owner
+     * @return A snapshot of the new apartment
+     * @throws IOException if no partition is reachable
+     */
+    public RoomSnapshot addApartment(String ownerName) throws IOException {
+        return write(leastLoadedPartition(), true,
+                (firstSequence, sequence, roomId) -> client -> client.addApartment(sequence, roomId, ownerName));
+    }
+
+    /**
+     * Adds a common room to the least loaded reachable partition.
+     * @param type The common room type name, e.g. GYM
+     * @return A snapshot of the new common room
+     * @throws IOException if no partition is reachable
+     * @throws IllegalArgumentException if the type is unknown
+     */
+    public RoomSnapshot addCommonRoom(String type) throws IOException {
+        // Validate before any endpoint is written to so a bad type never half-applies
+        try {
+            CommonRoom.RoomType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown common room type: " + type);
+        }
+        return write(leastLoadedPartition(), true,
+                (firstSequence, sequence, roomId) -> client -> client.addCommonRoom(sequence, roomId, type));
+    }
+
+    /**
+     * Probes every registered endpoint.
+     * @return One status line per endpoint
+     */
+    public List<String> status() {
+        List<String> lines = new ArrayList<>();
+        for (Partition partition : partitions()) {
+            long expected;
+            long logBase;
+            synchronized (partition) {
+                expected = partition.sequence;
+                logBase = partition.logBase;
+            }
+            for (ShardClient client : partition.endpoints) {
+                String state;
+                try {
+                    ShardClient.Status status = client.ping();
+                    state = "UP, " + status.getRoomCount() + " rooms, write " + status.getWriteSequence();
+                    if (status.getWriteSequence() < logBase) {
+                        state += " (too far behind to catch up, restart required)";
+                    } else if (status.getWriteSequence() < expected) {
+                        state += " (behind, coordinator is at " + expected + ")";
+                    }
+                } catch (IOException e) {
+                    state = "DOWN (" + e.getMessage() + ")";
+                }
+                lines.add("partition " + client.getPartitionId() + " @ " + client.getAddress() + ": " + state);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Closes all shard connections.
+     */
+    public void close() {
+        for (Partition partition : partitions()) {
+            for (ShardClient client : partition.endpoints) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * @param partitionId A registered partition
+     * @return The number of entries in the partition's write log
+     */
+    int getLogSize(int partitionId) {
+        Partition partition = partition(partitionId);
+        synchronized (partition) {
+            return partition.log.size();
+        }
+    }
+
+    /**
+     * The endpoints of one partition and the writes needed to bring them up to date.
+     * Everything except the endpoint list is guarded by the partition itself.
+     */
+    private static class Partition {
+        final int id;
+        final List<ShardClient> endpoints = new CopyOnWriteArrayList<>();
+
+        /** Writes after logBase, oldest first, covering every sequence up to the current one */
+        final List<LogEntry> log = new ArrayList<>();
+        long logBase;
+        /** Sequence of the last write applied, or -1 until an endpoint has been reached */
+        long sequence = -1;
+        int nextRoomId = 1;
+
+        Partition(int id) {
+            this.id = id;
+        }
+    }
+
+    /** One sequenced write, replayable against any endpoint of its partition */
+    private interface Write {
+        RoomSnapshot apply(ShardClient client) throws IOException;
+    }
+
+    /** A logged write covering the sequences from firstSequence to sequence */
+    private static class LogEntry {
+        final long firstSequence;
+        final long sequence;
+        final boolean addsRoom;
+        final Write write;
+
+        LogEntry(long firstSequence, long sequence, boolean addsRoom, Write write) {
+            this.firstSequence = firstSequence;
+            this.sequence = sequence;
+            this.addsRoom = addsRoom;
+            this.write = write;
+        }
+    }
+
+    /**
+     * Builds a write once its sequence and the id of any room it adds are known.
+     * The first sequence is earlier than the sequence only for a setpoint change
+     * that supersedes the setpoint changes logged just before it.
+     */
+    private interface WriteFactory {
+        Write create(long firstSequence, long sequence, int roomId);
+    }
+
+    /** A query against one endpoint */
+    private interface Read<T> {
+        T apply(ShardClient client) throws IOException;
+    }
+
+    /**
+     * Applies a write to every endpoint of a partition that is up to date or can be
+     * brought up to date, and logs it for the endpoints that are not.
+     * Endpoints that reject the write are reported and left behind, so they are not
+     * read from until the disagreement is resolved.
+     * @param partition The partition to write to
+     * @param addsRoom true if the write creates a room and consumes a room id
+     * @param factory Builds the write for the next sequence and room id
+     * @return The result from the first endpoint that applied the write
+     * @throws IOException if no endpoint applied the write
+     */
+    private RoomSnapshot write(Partition partition, boolean addsRoom, WriteFactory factory) throws IOException {
+        synchronized (partition) {
+            // Catch every endpoint up first; this may also move the partition's
+            // sequence forward if an endpoint has seen writes this coordinator has not
+            List<ShardClient> current = new ArrayList<>();
+            IOException lastFailure = null;
+            for (ShardClient client : partition.endpoints) {
+                try {
+                    ensureSynced(partition, client);
+                    current.add(client);
+                } catch (IOException e) {
+                    reportFailure(client, e);
+                    lastFailure = e;
+                }
+            }
+            if (current.isEmpty()) {
+                throw unavailable(partition, lastFailure);
+            }
+
+            long sequence = partition.sequence + 1;
+            int last = partition.log.size() - 1;
+            boolean merge = !addsRoom && last >= 0 && !partition.log.get(last).addsRoom;
+            long firstSequence = merge ? partition.log.get(last).firstSequence : sequence;
+            Write write = factory.create(firstSequence, sequence, partition.nextRoomId);
+            RoomSnapshot result = null;
+            boolean applied = false;
+            List<String> rejected = new ArrayList<>();
+            for (ShardClient client : current) {
+                try {
+                    RoomSnapshot snapshot = write.apply(client);
+                    if (!applied) {
+                        result = snapshot;
+                        applied = true;
+                    }
+                } catch (ShardClient.ShardException e) {
+                    rejected.add(e.getMessage());
+                    lastFailure = e;
+                } catch (IOException e) {
+                    reportFailure(client, e);
+                    lastFailure = e;
+                }
+            }
+            if (!applied) {
+                if (lastFailure instanceof ShardClient.ShardException) {
+                    throw lastFailure;
+                }
+                throw unavailable(partition, lastFailure);
+            }
+
+            LogEntry entry = new LogEntry(firstSequence, sequence, addsRoom, write);
+            if (merge) {
+                partition.log.set(last, entry);
+            } else {
+                partition.log.add(entry);
+            }
+            partition.sequence = sequence;
+            if (addsRoom) {
+                partition.nextRoomId++;
+            }
+            trimLog(partition);
+            if (!rejected.isEmpty()) {
+                System.err.println("Endpoints of partition " + partition.id + " disagree on write " + sequence +
+                        " and will not be read from: " + String.join("; ", rejected));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Runs a query on the first endpoint of a partition that is reachable and up to date.
+     */
+    private <T> T read(Partition partition, Read<T> query) throws IOException {
+        synchronized (partition) {
+            IOException lastFailure = null;
+            for (ShardClient client : partition.endpoints) {
+                try {
+                    ensureSynced(partition, client);
+                    return query.apply(client);
+                } catch (IOException e) {
+                    reportFailure(client, e);
+                    lastFailure = e;
+                }
+            }
+            throw unavailable(partition, lastFailure);
+        }
+    }
+
+    /**
+     * Replays the writes an endpoint has missed. Must hold the partition's lock.
+     * @throws IOException if the endpoint is unreachable, rejects a replayed write,
+     * or is too far behind to be caught up from the log
+     */
+    private static void ensureSynced(Partition partition, ShardClient client) throws IOException {
+        ShardClient.Status status = client.ping();
+        long applied = status.getWriteSequence();
+        partition.nextRoomId = Math.max(partition.nextRoomId, status.getHighestRoomId() + 1);
+        if (applied > partition.sequence) {
+            if (partition.sequence >= 0) {
+                System.err.println("Shard " + client.getAddress() + " is at write " + applied +
+                        " of partition " + partition.id + ", ahead of the coordinator's " + partition.sequence +
+                        "; endpoints that missed the difference cannot be caught up");
+            }
+            partition.sequence = applied;
+            partition.logBase = applied;
+            partition.log.clear();
+            return;
+        }
+        if (applied < partition.logBase) {
+            throw new IOException("Shard " + client.getAddress() + " is at write " + applied +
+                    " but the coordinator can only replay writes after " + partition.logBase +
+                    "; restart the partition's shards together with the coordinator");
+        }
+        if (applied == partition.sequence) {
+            return;
+        }
+        for (LogEntry entry : partition.log) {
+            if (entry.sequence > applied) {
+                entry.write.apply(client);
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest log entries beyond the cap and reports endpoints that can
+     * no longer be caught up as a result. Must hold the partition's lock.
+     */
+    private void trimLog(Partition partition) {
+        if (partition.log.size() <= maxLogEntries) {
+            return;
+        }
+        long previousBase = partition.logBase;
+        while (partition.log.size() > maxLogEntries) {
+            partition.logBase = partition.log.remove(0).sequence;
+        }
+        for (ShardClient client : partition.endpoints) {
+            // Endpoints that have never replied are assumed to start from their initial rooms
+            long acknowledged = Math.max(0, client.getAcknowledgedSequence());
+            if (acknowledged >= previousBase && acknowledged < partition.logBase) {
+                System.err.println("Shard " + client.getAddress() + " (partition " + partition.id +
+                        ") is at write " + acknowledged + " and has fallen out of the write log; restart the" +
+                        " partition's shards together with the coordinator to use it again");
+            }
+        }
+    }
+
+    /**
+     * Picks the reachable partition currently hosting the fewest rooms.
+     */
+    private Partition leastLoadedPartition() throws IOException {
+        Partition best = null;
+        int bestCount = Integer.MAX_VALUE;
+        for (Partition partition : partitions()) {
+            try {
+                int count = read(partition, client -> client.ping().getRoomCount());
+                if (count < bestCount) {
+                    best = partition;
+                    bestCount = count;
+                }
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+        if (best == null) {
+            throw new IOException("No shard is reachable");
+        }
+        return best;
+    }
+
+    private synchronized List<Partition> partitions() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    private synchronized Partition partition(int partitionId) {
+        Partition partition = partitions.get(partitionId);
+        if (partition == null) {
+            throw new IllegalArgumentException("Unknown partition: " + partitionId);
+        }
+        return partition;
+    }
+
+    private static IOException unavailable(Partition partition, IOException cause) {
+        return new IOException("No up-to-date endpoint of partition " + partition.id + " is reachable", cause);
+    }
+
+    private static void reportFailure(ShardClient client, IOException e) {
+        System.err.println("Shard " + client.getAddress() + " (partition " + client.getPartitionId() +
+                ") failed: " + e.getMessage());
+    }
+
+    /**
+     * Runs an interactive coordinator reading commands from standard input.
+     * Usage: {@code Coordinator <partition>@<host>:<port> ...}
+     *
+     * Commands: set &lt;temp&gt;, rooms, room &lt;partition&gt; &lt;id&gt;,
+     * add-apartment &lt;owner&gt;, add-common &lt;type&gt;, status, quit
+     * @param args Shard endpoints
+     * @throws IOException if standard input cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: Coordinator <partition>@<host>:<port> ...");
+            System.exit(1);
+        }
+        Coordinator coordinator = new Coordinator();
+        for (String arg : args) {
+            int at = arg.indexOf('@');
+            int colon = arg.lastIndexOf(':');
+            if (at < 0 || colon < at) {
+                System.err.println("Invalid shard endpoint: " + arg);
+                System.exit(1);
+            }
+            coordinator.addShard(Integer.parseInt(arg.substring(0, at)),
+                    arg.substring(at + 1, colon), Integer.parseInt(arg.substring(colon + 1)));
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.trim().split("\\s+", 2);
+            try {
+                switch (parts[0]) {
+                    case "set":
+                        int applied = coordinator.setRequestedTemperature(Double.parseDouble(parts[1]));
+                        System.out.println("Temperature applied on " + applied + " of " +
+                                coordinator.getPartitionIds().size() + " partitions");
+                        break;
+                    case "rooms":
+                        for (RoomSnapshot room : coordinator.getRooms()) {
+                            System.out.println(room);
+                        }
+                        break;
+                    case "room":
+                        String[] ids = parts[1].split("\\s+");
+                        RoomSnapshot room = coordinator.getRoom(Integer.parseInt(ids[0]), Integer.parseInt(ids[1]));
+                        System.out.println(room == null ? "No such room" : room.toString());
+                        break;
+                    case "add-apartment":
+                        System.out.println(coordinator.addApartment(parts[1]));
+                        break;
+                    case "add-common":
+                        System.out.println(coordinator.addCommonRoom(parts[1]));
+                        break;
+                    case "status":
+                        coordinator.status().forEach(System.out::println);
+                        break;
+                    case "quit":
+                        coordinator.close();
+                        return;
+                    case "":
+                        break;
+                    default:
+                        System.out.println("Unknown command: " + parts[0]);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        }
+        coordinator.close();
+    }
+}
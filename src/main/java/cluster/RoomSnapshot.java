@@ -0,0 +1,144 @@
+package cluster;
+
+import models.Apartment;
+import models.CommonRoom;
+import models.Room;
+
+/**
+ * Immutable point-in-time view of a room hosted on a shard.
+ * Snapshots are what travels over the wire between shards and the coordinator,
+ * so they carry the owning partition alongside the room's own identifier.
+ */
+public class RoomSnapshot {
+    /** Kind marker for apartments */
+    public static final byte KIND_APARTMENT = 0;
+    /** Kind marker for common rooms */
+    public static final byte KIND_COMMON_ROOM = 1;
+
+    private final int partitionId;
+    private final int roomId;
+    private final byte kind;
+    private final String label;
+    private final int apartmentNumber;
+    private final double currentTemperature;
+    private final boolean heatingEnabled;
+    private final boolean coolingEnabled;
+
+    /**
+     * Constructs a new RoomSnapshot from already decoded values.
+     * @param partitionId The partition that owns the room
+     * @param roomId The room identifier, unique within its partition
+     * @param kind Either {@link #KIND_APARTMENT} or {@link #KIND_COMMON_ROOM}
+     * @param label Owner name for apartments, room type for common rooms
+     * @param apartmentNumber Apartment number, or 0 for common rooms
+     * @param currentTemperature The room temperature in Celsius
+     * @param heatingEnabled Whether heating is active
+     * @param coolingEnabled Whether cooling is active
+     */
+    public RoomSnapshot(int partitionId, int roomId, byte kind, String label, int apartmentNumber,
+                        double currentTemperature, boolean heatingEnabled, boolean coolingEnabled) {
+        this.partitionId = partitionId;
+        this.roomId = roomId;
+        this.kind = kind;
+        this.label = label;
+        this.apartmentNumber = apartmentNumber;
+        this.currentTemperature = currentTemperature;
+        this.heatingEnabled = heatingEnabled;
+        this.coolingEnabled = coolingEnabled;
+    }
+
+    /**
+     * Captures the current state of a local room.
+     * @param partitionId The partition hosting the room
+     * @param room The room to capture
+     * @return A snapshot of the room
+     */
+    public static RoomSnapshot of(int partitionId, Room room) {
+        if (room instanceof Apartment) {
+            Apartment apt = (Apartment) room;
+            return new RoomSnapshot(partitionId, apt.getId(), KIND_APARTMENT, apt.getOwnerName(),
+                    apt.getApartmentNumber(), apt.getCurrentTemperature(),
+                    apt.isHeatingEnabled(), apt.isCoolingEnabled());
+        }
+        String label = room instanceof CommonRoom ? ((CommonRoom) room).getType().name() : "";
+        return new RoomSnapshot(partitionId, room.getId(), KIND_COMMON_ROOM, label, 0,
+                room.getCurrentTemperature(), room.isHeatingEnabled(), room.isCoolingEnabled());
+    }
+
+    /**
+     * @return The partition that owns the room
+     */
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    /**
+     * @return The room identifier within its partition
+     */
+    public int getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * @return true if the room is an apartment, false for common rooms
+     */
+    public boolean isApartment() {
+        return kind == KIND_APARTMENT;
+    }
+
+    /**
+     * @return The raw kind marker
+     */
+    public byte getKind() {
+        return kind;
+    }
+
+    /**
+     * @return Owner name for apartments, room type for common rooms
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return The apartment number, or 0 for common rooms
+     */
+    public int getApartmentNumber() {
+        return apartmentNumber;
+    }
+
+    /**
+     * @return The room temperature in Celsius at capture time
+     */
+    public double getCurrentTemperature() {
+        return currentTemperature;
+    }
+
+    /**
+     * @return true if heating was active at capture time
+     */
+    public boolean isHeatingEnabled() {
+        return heatingEnabled;
+    }
+
+    /**
+     * @return true if cooling was active at capture time
+     */
+    public boolean isCoolingEnabled() {
+        return coolingEnabled;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomSnapshot{" +
+                "partitionId=" + partitionId +
+                ", roomId=" + roomId +
+                (isApartment()
+                        ? ", apartmentNumber=" + apartmentNumber + ", ownerName='" + label + '\''
+                        : ", type=" + label) +
+                ", currentTemperature=" + String.format("%.2f", currentTemperature) +
+                ", heatingEnabled=" + heatingEnabled +
+                ", coolingEnabled=" + coolingEnabled +
+                '}';
+    }
+}
@@ -0,0 +1,317 @@
+package cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import utils.PropertyLoader;
+
+/**
+ * Coordinator-side connection to a single shard process.
+ * The connection is opened lazily and re-opened on the next request after any
+ * I/O failure, so a shard that is restarted is picked up again automatically.
+ * Requests on one client are serialised; use one client per shard endpoint.
+ */
+public class ShardClient implements Closeable {
+    private final int partitionId;
+    private final String host;
+    private final int port;
+
+    /** Last write sequence the shard reported or acknowledged, -1 until it has replied */
+    private long acknowledgedSequence = -1;
+
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+
+    /**
+     * Constructs a new ShardClient without connecting.
+     * @param partitionId The partition the shard is expected to own
+     * @param host The shard host name or address
+     * @param port The shard TCP port
+     */
+    public ShardClient(int partitionId, String host, int port) {
+        this.partitionId = partitionId;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * @return The partition the shard is expected to own
+     */
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    /**
+     * @return The shard endpoint as host:port
+     */
+    public String getAddress() {
+        return host + ":" + port;
+    }
+
+    /**
+     * A ping reports the shard's sequence as is, so this drops back after a restart.
+     * @return The last write sequence the shard reported or acknowledged, or -1 if unknown
+     */
+    public synchronized long getAcknowledgedSequence() {
+        return acknowledgedSequence;
+    }
+
+    /**
+     * @return true if a connection is currently open
+     */
+    public synchronized boolean isConnected() {
+        return socket != null;
+    }
+
+    /**
+     * Checks that the shard is reachable and owns the expected partition.
+     * @return The shard's room count, write sequence and highest room id
+     * @throws IOException if the shard is unreachable or misconfigured
+     */
+    public synchronized Status ping() throws IOException {
+        DataInputStream response = call(ShardProtocol.OP_PING, null);
+        int version = response.readInt();
+        int remotePartition = response.readInt();
+        if (version != ShardProtocol.VERSION || remotePartition != partitionId) {
+            disconnect();
+            throw new IOException("Shard " + getAddress() + " reports protocol " + version +
+                    " partition " + remotePartition + ", expected protocol " + ShardProtocol.VERSION +
+                    " partition " + partitionId);
+        }
+        int roomCount = response.readInt();
+        long writeSequence = response.readLong();
+        int highestRoomId = response.readInt();
+        acknowledgedSequence = writeSequence;
+        return new Status(roomCount, writeSequence, highestRoomId);
+    }
+
+    /**
+     * Sends a new requested temperature to the shard.
+     * @param firstSequence The first write of the run of setpoint changes this one supersedes
+     * @param sequence The partition write sequence of this change
+     * @param requestedTemperature The new target temperature
+     * @throws IOException if the request fails
+     */
+    public synchronized void setRequestedTemperature(long firstSequence, long sequence, double requestedTemperature)
+            throws IOException {
+        call(ShardProtocol.OP_SET_TEMPERATURE, o -> {
+            o.writeLong(firstSequence);
+            o.writeLong(sequence);
+            o.writeDouble(requestedTemperature);
+        });
+        acknowledge(sequence);
+    }
+
+    /**
+     * @return Snapshots of every room hosted by the shard
+     * @throws IOException if the request fails
+     */
+    public synchronized List<RoomSnapshot> listRooms() throws IOException {
+        DataInputStream response = call(ShardProtocol.OP_LIST_ROOMS, null);
+        int count = response.readInt();
+        List<RoomSnapshot> rooms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rooms.add(ShardProtocol.readRoom(response, partitionId));
+        }
+        return rooms;
+    }
+
+    /**
+     * @param roomId The room identifier within the partition
+     * @return A snapshot of the room, or null if the shard does not host it
+     * @throws IOException if the request fails
+     */
+    public synchronized RoomSnapshot getRoom(int roomId) throws IOException {
+        DataInputStream response = call(ShardProtocol.OP_GET_ROOM, o -> o.writeInt(roomId));
+        return response == null ? null : ShardProtocol.readRoom(response, partitionId);
+    }
+
+    /**
+     * @param sequence The partition write sequence of this addition
+     * @param roomId The coordinator-assigned room id
+     * @param ownerName The name of the apartment owner
+     * @return A snapshot of the apartment
+     * @throws IOException if the request fails
+     */
+    public synchronized RoomSnapshot addApartment(long sequence, int roomId, String ownerName) throws IOException {
+        DataInputStream response = call(ShardProtocol.OP_ADD_APARTMENT, o -> {
+            o.writeLong(sequence);
+            o.writeInt(roomId);
+            o.writeUTF(ownerName);
+        });
+        RoomSnapshot room = ShardProtocol.readRoom(response, partitionId);
+        acknowledge(sequence);
+        return room;
+    }
+
+    /**
+     * @param sequence The partition write sequence of this addition
+     * @param roomId The coordinator-assigned room id
+     * @param type The common room type name, e.g. GYM
+     * @return A snapshot of the common room
+     * @throws IOException if the request fails
+     */
+    public synchronized RoomSnapshot addCommonRoom(long sequence, int roomId, String type) throws IOException {
+        DataInputStream response = call(ShardProtocol.OP_ADD_COMMON_ROOM, o -> {
+            o.writeLong(sequence);
+            o.writeInt(roomId);
+            o.writeUTF(type);
+        });
+        RoomSnapshot room = ShardProtocol.readRoom(response, partitionId);
+        acknowledge(sequence);
+        return room;
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnect();
+    }
+
+    /**
+     * State reported by a shard in reply to a ping.
+     */
+    public static class Status {
+        private final int roomCount;
+        private final long writeSequence;
+        private final int highestRoomId;
+
+        Status(int roomCount, long writeSequence, int highestRoomId) {
+            this.roomCount = roomCount;
+            this.writeSequence = writeSequence;
+            this.highestRoomId = highestRoomId;
+        }
+
+        /**
+         * @return The number of rooms hosted by the shard
+         */
+        public int getRoomCount() {
+            return roomCount;
+        }
+
+        /**
+         * @return The sequence of the last coordinator write the shard applied
+         */
+        public long getWriteSequence() {
+            return writeSequence;
+        }
+
+        /**
+         * @return The highest room id on the shard, or 0 if it has no rooms
+         */
+        public int getHighestRoomId() {
+            return highestRoomId;
+        }
+    }
+
+    /** Writes the payload of a request after its opcode */
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Sends one request and reads its status byte.
+     * A request that fails on a connection opened earlier is sent once more on a new
+     * connection, since the shard may have restarted in between; every request is
+     * safe to repeat because a shard ignores writes it has already applied.
+     * @return The stream positioned at the response payload, or null for NOT_FOUND
+     * @throws IOException if the shard is unreachable or reports an error
+     */
+    private DataInputStream call(byte op, PayloadWriter payload) throws IOException {
+        boolean reused = socket != null;
+        try {
+            return send(op, payload);
+        } catch (ShardException e) {
+            throw e;
+        } catch (IOException e) {
+            disconnect();
+            if (!reused) {
+                throw e;
+            }
+        }
+        try {
+            return send(op, payload);
+        } catch (ShardException e) {
+            throw e;
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    private DataInputStream send(byte op, PayloadWriter payload) throws IOException {
+        connect();
+        out.writeByte(op);
+        if (payload != null) {
+            payload.write(out);
+        }
+        out.flush();
+        byte status = in.readByte();
+        if (status == ShardProtocol.STATUS_OK) {
+            return in;
+        } else if (status == ShardProtocol.STATUS_NOT_FOUND) {
+            return null;
+        } else if (status == ShardProtocol.STATUS_OUT_OF_SEQUENCE) {
+            acknowledgedSequence = in.readLong();
+            throw new ShardException("Shard " + getAddress() + " is at write " + acknowledgedSequence +
+                    " and cannot apply this one yet");
+        }
+        throw new ShardException("Shard " + getAddress() + " rejected request: " + in.readUTF());
+    }
+
+    /** A replayed write that was already applied must not move the sequence back */
+    private void acknowledge(long sequence) {
+        acknowledgedSequence = Math.max(acknowledgedSequence, sequence);
+    }
+
+    private void connect() throws IOException {
+        if (socket != null) {
+            return;
+        }
+        Socket s = new Socket();
+        try {
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(PropertyLoader.getIntProperty("coordinator.read.timeout.ms"));
+            s.connect(new InetSocketAddress(host, port), PropertyLoader.getIntProperty("coordinator.connect.timeout.ms"));
+            in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            socket = s;
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already broken; nothing more to do
+            }
+        }
+        socket = null;
+        in = null;
+        out = null;
+    }
+
+    /**
+     * Raised when a shard answers a request with an error status.
+     * The connection remains usable, unlike other I/O failures.
+     */
+    public static class ShardException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public ShardException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary wire protocol spoken between the coordinator and shard processes.
+ *
+ * Every request is a single opcode byte followed by its payload, and every
+ * response is a single status byte followed by its payload. All values use the
+ * big-endian encoding of {@link DataOutputStream}; strings use modified UTF-8.
+ *
+ * - PING: no payload; replies with protocol version, partition id, room count,
+ *   long write sequence and int highest room id
+ * - SET_TEMPERATURE: long first write sequence, long write sequence, double setpoint;
+ *   replies with no payload
+ * - LIST_ROOMS: no payload; replies with a room count followed by that many rooms
+ * - GET_ROOM: int room id; replies with one room, or NOT_FOUND
+ * - ADD_APARTMENT: long write sequence, int room id, string owner name; replies with the new room
+ * - ADD_COMMON_ROOM: long write sequence, int room id, string room type; replies with the new room
+ *
+ * Writes carry a per-partition sequence number assigned by the coordinator, and
+ * room ids are assigned by the coordinator too, so every shard serving a partition
+ * ends up with the same rooms. A shard applies a write only if its sequence is the
+ * next one it expects; a write it has already applied is acknowledged again without
+ * effect, and a write that would leave a gap is answered with OUT_OF_SEQUENCE
+ * followed by the shard's current long write sequence. A setpoint change may stand
+for a run of consecutive setpoint changes that it supersedes, from its first write
+sequence up to its write sequence; it applies to a shard anywhere inside that run.
+ *
+ * A room is encoded as: int id, byte kind, string label, int apartment number,
+ * double temperature, byte flags (bit 0 heating, bit 1 cooling).
+ * Any request may instead be answered with ERROR followed by a string message.
+ */
+public final class ShardProtocol {
+    /** Bumped whenever the wire format changes incompatibly */
+    public static final int VERSION = 3;
+
+    public static final byte OP_PING = 1;
+    public static final byte OP_SET_TEMPERATURE = 2;
+    public static final byte OP_LIST_ROOMS = 3;
+    public static final byte OP_GET_ROOM = 4;
+    public static final byte OP_ADD_APARTMENT = 5;
+    public static final byte OP_ADD_COMMON_ROOM = 6;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_NOT_FOUND = 1;
+    public static final byte STATUS_ERROR = 2;
+    public static final byte STATUS_OUT_OF_SEQUENCE = 3;
+
+    private static final int FLAG_HEATING = 1;
+    private static final int FLAG_COOLING = 1 << 1;
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * Encodes a room snapshot onto the stream.
+     * The partition id is not written since it is implied by the connection.
+     * @param out The stream to write to
+     * @param room The snapshot to encode
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeRoom(DataOutputStream out, RoomSnapshot room) throws IOException {
+        out.writeInt(room.getRoomId());
+        out.writeByte(room.getKind());
+        out.writeUTF(room.getLabel());
+        out.writeInt(room.getApartmentNumber());
+        out.writeDouble(room.getCurrentTemperature());
+        int flags = (room.isHeatingEnabled() ? FLAG_HEATING : 0) | (room.isCoolingEnabled() ? FLAG_COOLING : 0);
+        out.writeByte(flags);
+    }
+
+    /**
+     * Decodes a room snapshot from the stream.
+     * @param in The stream to read from
+     * @param partitionId The partition of the shard the room was read from
+     * @return The decoded snapshot
+     * @throws IOException if the stream cannot be read
+     */
+    public static RoomSnapshot readRoom(DataInputStream in, int partitionId) throws IOException {
+        int roomId = in.readInt();
+        byte kind = in.readByte();
+        String label = in.readUTF();
+        int apartmentNumber = in.readInt();
+        double temperature = in.readDouble();
+        int flags = in.readUnsignedByte();
+        return new RoomSnapshot(partitionId, roomId, kind, label, apartmentNumber, temperature,
+                (flags & FLAG_HEATING) != 0, (flags & FLAG_COOLING) != 0);
+    }
+}
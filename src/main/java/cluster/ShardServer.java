@@ -0,0 +1,329 @@
+package cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import export.RoomStateExporter;
+import models.*;
+import utils.PropertyLoader;
+
+/**
+ * A controller process that owns one partition of the building.
+ * The shard runs an ordinary {@link Building} holding its share of the rooms and
+ * serves requests from the coordinator over a local TCP socket using
+ * {@link ShardProtocol}. Several shards may serve the same partition id, in which
+ * case they act as standbys for one another; they must be launched with the same
+ * initial rooms so that coordinator writes leave them with identical room sets.
+ */
+public class ShardServer {
+    private final int partitionId;
+    private final Building building;
+    private final ServerSocket serverSocket;
+
+    /** Sequence of the last coordinator write applied, guarded by this */
+    private long writeSequence;
+
+    /** One thread per coordinator connection */
+    private final ExecutorService connectionPool = Executors.newCachedThreadPool();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a new ShardServer and binds its listening socket.
+     * The bind address is taken from the 'shard.bind.address' property.
+     * @param partitionId The partition this shard owns
+     * @param building The building holding the partition's rooms
+     * @param port The TCP port to listen on, or 0 for any free port
+     * @throws IOException if the socket cannot be bound
+     */
+    public ShardServer(int partitionId, Building building, int port) throws IOException {
+        this.partitionId = partitionId;
+        this.building = building;
+        this.serverSocket = new ServerSocket(port, 50,
+                InetAddress.getByName(PropertyLoader.getProperty("shard.bind.address")));
+    }
+
+    /**
+     * @return The partition this shard owns
+     */
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    /**
+     * @return The port the shard is listening on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting coordinator connections on a background thread.
+     */
+    public void start() {
+        connectionPool.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connectionPool.execute(() -> handleConnection(socket));
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) {
+                        System.err.println("Shard " + partitionId + " failed to accept connection: " + e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops accepting connections, drops open ones and shuts down the hosted building.
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Shard " + partitionId + " failed to close socket: " + e.getMessage());
+        }
+        // Blocked socket reads ignore interrupts, so close the connections to end their threads
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Closing anyway; nothing more to do
+            }
+        }
+        connectionPool.shutdownNow();
+        // The listening port is only released once the accepting thread has returned
+        try {
+            connectionPool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        building.stopRecalculationTask();
+    }
+
+    /**
+     * Serves requests on a single connection until the peer disconnects.
+     * @param socket The accepted connection
+     */
+    private void handleConnection(Socket socket) {
+        connections.add(socket);
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            while (true) {
+                byte op = in.readByte();
+                handleRequest(op, in, out);
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // Peer went away; nothing to clean up beyond closing the socket
+        } catch (IOException e) {
+            System.err.println("Shard " + partitionId + " connection error: " + e.getMessage());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Decodes and executes a single request, writing its response.
+     * @param op The request opcode
+     * @param in The stream holding the request payload
+     * @param out The stream to write the response to
+     * @throws IOException if the connection fails
+     */
+    private void handleRequest(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case ShardProtocol.OP_PING:
+                synchronized (this) {
+                    out.writeByte(ShardProtocol.STATUS_OK);
+                    out.writeInt(ShardProtocol.VERSION);
+                    out.writeInt(partitionId);
+                    out.writeInt(building.getRooms().size());
+                    out.writeLong(writeSequence);
+                    out.writeInt(highestRoomId());
+                }
+                break;
+            case ShardProtocol.OP_SET_TEMPERATURE: {
+                long firstSequence = in.readLong();
+                long sequence = in.readLong();
+                double requestedTemperature = in.readDouble();
+                synchronized (this) {
+                    if (firstSequence > writeSequence + 1) {
+                        writeOutOfSequence(out);
+                        break;
+                    }
+                    // A sequence already applied is acknowledged again without effect
+                    if (sequence > writeSequence) {
+                        building.setRequestedTemperature(requestedTemperature);
+                        writeSequence = sequence;
+                    }
+                }
+                out.writeByte(ShardProtocol.STATUS_OK);
+                break;
+            }
+            case ShardProtocol.OP_LIST_ROOMS: {
+                // Snapshot first so the count always matches the rooms written
+                List<Room> rooms = building.getRooms();
+                Room[] current = rooms.toArray(new Room[0]);
+                out.writeByte(ShardProtocol.STATUS_OK);
+                out.writeInt(current.length);
+                for (Room room : current) {
+                    ShardProtocol.writeRoom(out, RoomSnapshot.of(partitionId, room));
+                }
+                break;
+            }
+            case ShardProtocol.OP_GET_ROOM: {
+                Room found = findRoom(in.readInt());
+                if (found == null) {
+                    out.writeByte(ShardProtocol.STATUS_NOT_FOUND);
+                } else {
+                    out.writeByte(ShardProtocol.STATUS_OK);
+                    ShardProtocol.writeRoom(out, RoomSnapshot.of(partitionId, found));
+                }
+                break;
+            }
+            case ShardProtocol.OP_ADD_APARTMENT: {
+                long sequence = in.readLong();
+                int roomId = in.readInt();
+                String ownerName = in.readUTF();
+                addRoom(sequence, roomId, () -> new Apartment(ownerName, roomId), out);
+                break;
+            }
+            case ShardProtocol.OP_ADD_COMMON_ROOM: {
+                long sequence = in.readLong();
+                int roomId = in.readInt();
+                String type = in.readUTF();
+                CommonRoom.RoomType roomType;
+                try {
+                    roomType = CommonRoom.RoomType.valueOf(type.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    writeError(out, "Unknown common room type: " + type);
+                    break;
+                }
+                addRoom(sequence, roomId, () -> new CommonRoom(roomType, roomId), out);
+                break;
+            }
+            default:
+                // The payload length of an unknown op is unknown, so the stream
+                // cannot be resynchronised; report and drop the connection
+                writeError(out, "Unknown opcode: " + op);
+                out.flush();
+                throw new IOException("Unknown opcode " + op + " from coordinator");
+        }
+    }
+
+    /**
+     * Applies a sequenced room addition and replies with the room.
+     * A replayed addition that was already applied replies with the existing room.
+     * @param sequence The write sequence of the request
+     * @param roomId The coordinator-assigned room id
+     * @param factory Creates the room if the write is applied
+     * @param out The stream to write the response to
+     * @throws IOException if the connection fails
+     */
+    private synchronized void addRoom(long sequence, int roomId, Supplier<Room> factory, DataOutputStream out)
+            throws IOException {
+        if (sequence > writeSequence + 1) {
+            writeOutOfSequence(out);
+            return;
+        }
+        Room room = findRoom(roomId);
+        if (sequence == writeSequence + 1) {
+            if (room != null) {
+                writeError(out, "Room id " + roomId + " is already in use on partition " + partitionId);
+                return;
+            }
+            room = factory.get();
+            building.addRoom(room);
+            writeSequence = sequence;
+        } else if (room == null) {
+            writeError(out, "Write " + sequence + " was applied but room " + roomId + " no longer exists");
+            return;
+        }
+        out.writeByte(ShardProtocol.STATUS_OK);
+        ShardProtocol.writeRoom(out, RoomSnapshot.of(partitionId, room));
+    }
+
+    private Room findRoom(int roomId) {
+        for (Room room : building.getRooms()) {
+            if (room.getId() == roomId) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    private int highestRoomId() {
+        int highest = 0;
+        for (Room room : building.getRooms()) {
+            highest = Math.max(highest, room.getId());
+        }
+        return highest;
+    }
+
+    private void writeOutOfSequence(DataOutputStream out) throws IOException {
+        out.writeByte(ShardProtocol.STATUS_OUT_OF_SEQUENCE);
+        out.writeLong(writeSequence);
+    }
+
+    private static void writeError(DataOutputStream out, String message) throws IOException {
+        out.writeByte(ShardProtocol.STATUS_ERROR);
+        out.writeUTF(message);
+    }
+
+    /**
+     * Launches a standalone shard process.
+     * Usage: {@code ShardServer <partitionId> <port> [apartments] [commonRooms]}
+     * @param args Command line arguments
+     * @throws IOException if the listening socket cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ShardServer <partitionId> <port> [apartments] [commonRooms]");
+            System.exit(1);
+        }
+        int partitionId = Integer.parseInt(args[0]);
+        int port = Integer.parseInt(args[1]);
+        int apartments = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int commonRooms = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        Building building = new Building(25.0);
+        for (int i = 0; i < apartments; i++) {
+            building.addRoom(new Apartment("Resident " + partitionId + "-" + (i + 1)));
+        }
+        CommonRoom.RoomType[] types = CommonRoom.RoomType.values();
+        for (int i = 0; i < commonRooms; i++) {
+            building.addRoom(new CommonRoom(types[i % types.length]));
+        }
+        building.startRecalculationTask();
+
+        // Each shard exports its own partition to a file named after the partition id
+        if (Boolean.parseBoolean(PropertyLoader.getProperty("export.enabled"))) {
+            String file = String.format(PropertyLoader.getProperty("export.shard.file"), partitionId);
+            new RoomStateExporter(building, Paths.get(file), PropertyLoader.getIntProperty("export.capacity")).start();
+        }
+
+        ShardServer server = new ShardServer(partitionId, building, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        System.out.println("Shard " + partitionId + " listening on port " + server.getPort() +
+                " with " + building.getRooms().size() + " rooms");
+    }
+}
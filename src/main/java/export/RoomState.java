@@ -0,0 +1,87 @@
+package export;
+
+/**
+ * Consistent copy of one record read from the shared-memory room state file.
+ */
+public class RoomState {
+    private final int slot;
+    private final int roomId;
+    private final int mode;
+    private final double currentTemperature;
+    private final long updatedMillis;
+
+    /**
+     * Constructs a new RoomState from decoded record fields.
+     * @param slot The record slot the state was read from
+     * @param roomId The room identifier
+     * @param mode The HVAC mode, one of the RoomStateLayout.MODE_* values
+     * @param currentTemperature The room temperature in Celsius
+     * @param updatedMillis When the record was written, epoch milliseconds
+     */
+    public RoomState(int slot, int roomId, int mode, double currentTemperature, long updatedMillis) {
+        this.slot = slot;
+        this.roomId = roomId;
+        this.mode = mode;
+        this.currentTemperature = currentTemperature;
+        this.updatedMillis = updatedMillis;
+    }
+
+    /**
+     * @return The record slot the state was read from
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return The room identifier
+     */
+    public int getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * @return The HVAC mode, one of the RoomStateLayout.MODE_* values
+     */
+    public int getMode() {
+        return mode;
+    }
+
+    /**
+     * @return true if heating was active
+     */
+    public boolean isHeatingEnabled() {
+        return mode == RoomStateLayout.MODE_HEATING;
+    }
+
+    /**
+     * @return true if cooling was active
+     */
+    public boolean isCoolingEnabled() {
+        return mode == RoomStateLayout.MODE_COOLING;
+    }
+
+    /**
+     * @return The room temperature in Celsius
+     */
+    public double getCurrentTemperature() {
+        return currentTemperature;
+    }
+
+    /**
+     * @return When the record was written, epoch milliseconds
+     */
+    public long getUpdatedMillis() {
+        return updatedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomState{" +
+                "id=" + roomId +
+                ", currentTemperature=" + String.format("%.2f", currentTemperature) +
+                ", heatingEnabled=" + isHeatingEnabled() +
+                ", coolingEnabled=" + isCoolingEnabled() +
+                '}';
+    }
+}
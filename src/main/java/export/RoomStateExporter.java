@@ -0,0 +1,200 @@
+package export;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import models.Building;
+import models.Room;
+import utils.PropertyLoader;
+import utils.TickScheduler;
+
+/**
+ * Publishes the state of every room in a building into a memory-mapped file.
+ *
+ * Each room keeps the same record slot for as long as it is in the building, and
+ * every record is guarded by its own seqlock version counter, so processes on the
+ * same host can map the file and read a consistent view without copying or
+ * deserialising anything and without contacting the controller.
+ * See {@link RoomStateLayout} for the file format and {@link RoomStateReader}
+ * for the reading side.
+ */
+public class RoomStateExporter {
+    private final Building building;
+    private final int capacity;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final TickScheduler scheduler;
+
+    /** Slot assignments, touched only by the publishing thread */
+    private final Map<Integer, Integer> slotByRoomId = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int highWater;
+    private long publishSequence;
+    private boolean overflowReported;
+
+    /**
+     * Creates or clears the export file and writes its header.
+     * The file is locked for as long as the exporter runs, so a second exporter
+     * pointed at the same file fails here instead of mixing its rooms into it.
+     * An existing file is only ever grown, never shrunk, so readers that still
+     * map a larger file from an earlier run do not fault.
+     * Publishing runs every 'temperature.update.interval' seconds once started.
+     * @param building The building whose rooms are published
+     * @param path The file to publish into, typically under /dev/shm
+     * @param capacity The maximum number of rooms the file can hold
+     * @throws IOException if the file cannot be created or mapped, or another exporter holds it
+     * @throws IllegalArgumentException if the capacity is not positive or too large to map
+     */
+    public RoomStateExporter(Building building, Path path, int capacity) throws IOException {
+        if (capacity <= 0 || RoomStateLayout.fileSize(capacity) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid export capacity: " + capacity);
+        }
+        this.building = building;
+        this.capacity = capacity;
+        this.file = new RandomAccessFile(path.toFile(), "rw");
+        try {
+            lock(path);
+            if (file.length() < RoomStateLayout.fileSize(capacity)) {
+                file.setLength(RoomStateLayout.fileSize(capacity));
+            }
+            this.buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, RoomStateLayout.fileSize(capacity));
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        this.scheduler = new TickScheduler(
+                PropertyLoader.getDoubleProperty("temperature.update.interval"), elapsedSeconds -> publish());
+
+        // Clear in place rather than truncating, since truncating a file other
+        // processes have mapped makes their reads fault; the magic goes first so
+        // readers treat the file as uninitialised until the header is rewritten.
+        // Any tail beyond this capacity is left alone and ignored by new readers
+        RoomStateLayout.INT.setVolatile(buffer, RoomStateLayout.HEADER_MAGIC, 0);
+        for (int offset = 8; offset < buffer.capacity(); offset += 8) {
+            RoomStateLayout.LONG.set(buffer, offset, 0L);
+        }
+        RoomStateLayout.INT.set(buffer, RoomStateLayout.HEADER_VERSION, RoomStateLayout.VERSION);
+        RoomStateLayout.INT.set(buffer, RoomStateLayout.HEADER_CAPACITY, capacity);
+        RoomStateLayout.INT.set(buffer, RoomStateLayout.HEADER_RECORD_SIZE, RoomStateLayout.RECORD_SIZE);
+        RoomStateLayout.INT.setRelease(buffer, RoomStateLayout.HEADER_MAGIC, RoomStateLayout.MAGIC);
+    }
+
+    /**
+     * Takes an exclusive lock on the whole file, held until the file is closed.
+     * @throws IOException if another exporter, in this process or another, holds it
+     */
+    private void lock(Path path) throws IOException {
+        FileLock lock;
+        try {
+            lock = file.getChannel().tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("Room state file " + path + " is already being exported to by another exporter");
+        }
+    }
+
+    /**
+     * Starts publishing on every tick.
+     */
+    public void start() {
+        scheduler.start();
+    }
+
+    /**
+     * Stops publishing and closes the file. The last published state stays readable.
+     */
+    public void stop() {
+        scheduler.stop();
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close room state export: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the current state of every room, frees the slots of removed rooms
+     * and then advances the header's publish sequence.
+     * Called on every tick once started; must not be called concurrently.
+     */
+    void publish() {
+        long now = System.currentTimeMillis();
+        Set<Integer> present = new HashSet<>();
+        for (Room room : building.getRooms()) {
+            Integer slot = slotByRoomId.get(room.getId());
+            if (slot == null) {
+                slot = allocateSlot();
+                if (slot == null) {
+                    if (!overflowReported) {
+                        System.err.println("Room state export is full at " + capacity +
+                                " rooms; further rooms are not exported");
+                        overflowReported = true;
+                    }
+                    continue;
+                }
+                slotByRoomId.put(room.getId(), slot);
+            }
+            present.add(room.getId());
+            int mode = room.isHeatingEnabled() ? RoomStateLayout.MODE_HEATING
+                    : room.isCoolingEnabled() ? RoomStateLayout.MODE_COOLING
+                    : RoomStateLayout.MODE_OFF;
+            writeRecord(slot, room.getId(), mode, room.getCurrentTemperature(), now);
+        }
+
+        Iterator<Map.Entry<Integer, Integer>> it = slotByRoomId.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Integer> entry = it.next();
+            if (!present.contains(entry.getKey())) {
+                writeRecord(entry.getValue(), 0, RoomStateLayout.MODE_OFF, 0, now);
+                freeSlots.push(entry.getValue());
+                it.remove();
+            }
+        }
+
+        RoomStateLayout.LONG.setRelease(buffer, RoomStateLayout.HEADER_PUBLISH_TIME, now);
+        RoomStateLayout.LONG.setRelease(buffer, RoomStateLayout.HEADER_PUBLISH_SEQUENCE, ++publishSequence);
+    }
+
+    private Integer allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (highWater == capacity) {
+            return null;
+        }
+        int slot = highWater++;
+        RoomStateLayout.INT.setRelease(buffer, RoomStateLayout.HEADER_HIGH_WATER, highWater);
+        return slot;
+    }
+
+    /**
+     * Writes one record under its seqlock: the version goes odd before the fields
+     * change and returns to even, with release semantics, once they are complete.
+     */
+    private void writeRecord(int slot, int roomId, int mode, double temperature, long updated) {
+        int offset = RoomStateLayout.recordOffset(slot);
+        long version = (long) RoomStateLayout.LONG.get(buffer, offset + RoomStateLayout.RECORD_VERSION);
+        RoomStateLayout.LONG.setOpaque(buffer, offset + RoomStateLayout.RECORD_VERSION, version + 1);
+        VarHandle.storeStoreFence();
+        RoomStateLayout.INT.set(buffer, offset + RoomStateLayout.RECORD_ROOM_ID, roomId);
+        RoomStateLayout.INT.set(buffer, offset + RoomStateLayout.RECORD_MODE, mode);
+        RoomStateLayout.LONG.set(buffer, offset + RoomStateLayout.RECORD_TEMPERATURE, Double.doubleToRawLongBits(temperature));
+        RoomStateLayout.LONG.set(buffer, offset + RoomStateLayout.RECORD_UPDATED, updated);
+        RoomStateLayout.LONG.setRelease(buffer, offset + RoomStateLayout.RECORD_VERSION, version + 2);
+    }
+}
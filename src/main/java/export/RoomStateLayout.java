@@ -0,0 +1,84 @@
+package export;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Binary layout of the shared-memory room state file.
+ *
+ * All values are little-endian. The file is a 64-byte header followed by
+ * {@code capacity} fixed-size 32-byte records, one slot per room.
+ *
+ * Header:
+ * - 0 int magic, {@link #MAGIC}; written last, so zero means not yet initialised
+ * - 4 int layout version, {@link #VERSION}
+ * - 8 int capacity, the number of record slots
+ * - 12 int record size in bytes
+ * - 16 long publish sequence, incremented after every completed publish
+ * - 24 long time of the last publish, epoch milliseconds
+ * - 32 int slot high-water mark; slots at or above it have never been used
+ * - 36-63 reserved
+ *
+ * Record:
+ * - 0 long version, a seqlock counter: odd while the record is being written,
+ *   even when stable, 0 if the slot has never been written
+ * - 8 int room id, 0 if the slot is free
+ * - 12 int HVAC mode, one of {@link #MODE_OFF}, {@link #MODE_HEATING}, {@link #MODE_COOLING}
+ * - 16 double current temperature in Celsius
+ * - 24 long time the record was written, epoch milliseconds
+ *
+ * A reader takes a consistent copy of a record by reading the version, skipping
+ * the attempt if it is odd, reading the fields, then re-reading the version and
+ * retrying if it changed.
+ */
+public final class RoomStateLayout {
+    public static final int MAGIC = 0x52534D31; // "RSM1"
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 32;
+
+    public static final int HEADER_MAGIC = 0;
+    public static final int HEADER_VERSION = 4;
+    public static final int HEADER_CAPACITY = 8;
+    public static final int HEADER_RECORD_SIZE = 12;
+    public static final int HEADER_PUBLISH_SEQUENCE = 16;
+    public static final int HEADER_PUBLISH_TIME = 24;
+    public static final int HEADER_HIGH_WATER = 32;
+
+    public static final int RECORD_VERSION = 0;
+    public static final int RECORD_ROOM_ID = 8;
+    public static final int RECORD_MODE = 12;
+    public static final int RECORD_TEMPERATURE = 16;
+    public static final int RECORD_UPDATED = 24;
+
+    public static final int MODE_OFF = 0;
+    public static final int MODE_HEATING = 1;
+    public static final int MODE_COOLING = 2;
+
+    /** Ordered access to int fields; offsets must be 4-byte aligned */
+    static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** Ordered access to long fields; offsets must be 8-byte aligned */
+    static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private RoomStateLayout() {
+    }
+
+    /**
+     * @param capacity The number of record slots
+     * @return The total file size in bytes
+     */
+    public static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE;
+    }
+
+    /**
+     * @param slot The record slot
+     * @return The byte offset of the slot's record
+     */
+    public static int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,217 @@
+package export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import utils.PropertyLoader;
+
+/**
+ * Reads room state published by {@link RoomStateExporter} from another process.
+ *
+ * The file is mapped read-only and records are read in place using the seqlock
+ * protocol described in {@link RoomStateLayout}, so reading never blocks or
+ * slows down the controller. Reads use absolute offsets only, so one reader
+ * may be shared by any number of threads.
+ */
+public class RoomStateReader implements Closeable {
+    /** How long a record may stay mid-write before the last publish time is checked */
+    private static final long STALLED_WRITE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /** Number of update intervals without a publish after which the exporter is presumed dead */
+    private static final int STALE_PUBLISH_INTERVALS = 3;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final long stalePublishMillis;
+
+    /**
+     * Maps an export file and validates its header.
+     * The exporter is presumed dead once it has not published for
+     * a few 'temperature.update.interval' periods.
+     * @param path The file written by the exporter
+     * @throws IOException if the file cannot be mapped, is not initialised, or uses another layout version
+     */
+    public RoomStateReader(Path path) throws IOException {
+        this(path, (long) (STALE_PUBLISH_INTERVALS * 1000 *
+                PropertyLoader.getDoubleProperty("temperature.update.interval")));
+    }
+
+    /**
+     * Maps an export file and validates its header.
+     * @param path The file written by the exporter
+     * @param stalePublishMillis How long after the last publish the exporter is presumed dead
+     * @throws IOException if the file cannot be mapped, is not initialised, or uses another layout version
+     */
+    RoomStateReader(Path path, long stalePublishMillis) throws IOException {
+        this.stalePublishMillis = stalePublishMillis;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() < RoomStateLayout.HEADER_SIZE) {
+                throw new IOException("Room state file " + path + " is too small");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = (int) RoomStateLayout.INT.getAcquire(buffer, RoomStateLayout.HEADER_MAGIC);
+            int version = (int) RoomStateLayout.INT.get(buffer, RoomStateLayout.HEADER_VERSION);
+            int recordSize = (int) RoomStateLayout.INT.get(buffer, RoomStateLayout.HEADER_RECORD_SIZE);
+            if (magic != RoomStateLayout.MAGIC) {
+                throw new IOException("Room state file " + path + " is not initialised");
+            }
+            if (version != RoomStateLayout.VERSION || recordSize != RoomStateLayout.RECORD_SIZE) {
+                throw new IOException("Room state file " + path + " uses layout version " + version +
+                        ", expected " + RoomStateLayout.VERSION);
+            }
+            this.capacity = (int) RoomStateLayout.INT.get(buffer, RoomStateLayout.HEADER_CAPACITY);
+            if (RoomStateLayout.fileSize(capacity) > channel.size()) {
+                throw new IOException("Room state file " + path + " is shorter than its declared capacity");
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of record slots in the file
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of publishes completed; unchanged values mean no new data
+     */
+    public long getPublishSequence() {
+        return (long) RoomStateLayout.LONG.getAcquire(buffer, RoomStateLayout.HEADER_PUBLISH_SEQUENCE);
+    }
+
+    /**
+     * @return The time of the last completed publish, epoch milliseconds
+     */
+    public long getLastPublishMillis() {
+        return (long) RoomStateLayout.LONG.getAcquire(buffer, RoomStateLayout.HEADER_PUBLISH_TIME);
+    }
+
+    /**
+     * @return The number of slots that have ever been used; higher slots are always empty
+     */
+    public int getSlotCount() {
+        return Math.min(capacity, (int) RoomStateLayout.INT.getAcquire(buffer, RoomStateLayout.HEADER_HIGH_WATER));
+    }
+
+    /**
+     * Takes a consistent copy of one record, retrying while the exporter is writing it.
+     * @param slot The record slot
+     * @return The room state, or null if the slot is free
+     * @throws IndexOutOfBoundsException if the slot is outside the file's capacity
+     * @throws IllegalStateException if the record stays mid-write and the exporter has
+     * not published for a few update intervals, which happens when it died while writing
+     * the record. A writer that is merely preempted is waited for.
+     */
+    public RoomState read(int slot) {
+        if (slot < 0 || slot >= capacity) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " outside capacity " + capacity);
+        }
+        int offset = RoomStateLayout.recordOffset(slot);
+        long deadline = 0;
+        while (true) {
+            long before = (long) RoomStateLayout.LONG.getAcquire(buffer, offset + RoomStateLayout.RECORD_VERSION);
+            if ((before & 1) != 0) {
+                // Only start the clock on contention; an uncontended read never calls nanoTime
+                if (deadline == 0) {
+                    deadline = System.nanoTime() + STALLED_WRITE_NANOS;
+                } else if (System.nanoTime() - deadline > 0) {
+                    // A descheduled writer still publishes soon after resuming; a dead one never does
+                    long publishAge = System.currentTimeMillis() - getLastPublishMillis();
+                    if (publishAge > stalePublishMillis) {
+                        throw new IllegalStateException("Slot " + slot + " is stuck mid-write and the last publish was " +
+                                publishAge + " ms ago; the exporter has stopped");
+                    }
+                    deadline = System.nanoTime() + STALLED_WRITE_NANOS;
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            int roomId = (int) RoomStateLayout.INT.get(buffer, offset + RoomStateLayout.RECORD_ROOM_ID);
+            int mode = (int) RoomStateLayout.INT.get(buffer, offset + RoomStateLayout.RECORD_MODE);
+            long temperature = (long) RoomStateLayout.LONG.get(buffer, offset + RoomStateLayout.RECORD_TEMPERATURE);
+            long updated = (long) RoomStateLayout.LONG.get(buffer, offset + RoomStateLayout.RECORD_UPDATED);
+            VarHandle.loadLoadFence();
+            long after = (long) RoomStateLayout.LONG.getOpaque(buffer, offset + RoomStateLayout.RECORD_VERSION);
+            if (before == after) {
+                return roomId == 0 ? null
+                        : new RoomState(slot, roomId, mode, Double.longBitsToDouble(temperature), updated);
+            }
+        }
+    }
+
+    /**
+     * @return Consistent copies of every occupied record, in slot order
+     * @throws IllegalStateException if a record stays mid-write, see {@link #read(int)}
+     */
+    public List<RoomState> readAll() {
+        int slots = getSlotCount();
+        List<RoomState> states = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            RoomState state = read(slot);
+            if (state != null) {
+                states.add(state);
+            }
+        }
+        return states;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Prints the exported rooms, once or every second with --watch.
+     * A stopped exporter ends a single read with exit status 1; with --watch it is
+     * reported and watching continues, so a restarted exporter is picked up again.
+     * Usage: {@code RoomStateReader [file] [--watch]}; the file defaults to 'export.file'.
+     * @param args Command line arguments
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if interrupted while watching
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String file = PropertyLoader.getProperty("export.file");
+        boolean watch = false;
+        for (String arg : args) {
+            if ("--watch".equals(arg)) {
+                watch = true;
+            } else {
+                file = arg;
+            }
+        }
+        try (RoomStateReader reader = new RoomStateReader(Paths.get(file))) {
+            do {
+                try {
+                    List<RoomState> states = reader.readAll();
+                    System.out.println("Publish #" + reader.getPublishSequence() + ", " + states.size() + " rooms:");
+                    for (RoomState state : states) {
+                        System.out.println(state);
+                    }
+                } catch (IllegalStateException e) {
+                    System.err.println(e.getMessage());
+                    if (!watch) {
+                        System.exit(1);
+                        return;
+                    }
+                }
+                if (watch) {
+                    Thread.sleep(1000);
+                }
+            } while (watch);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package loadtest;
+
+/**
+ * Thread-safe recorder for latency samples.
+ *
+ * Samples are counted in a fixed-size log-linear histogram rather than kept
+ * individually, so memory use stays constant however long a soak run lasts and
+ * recording never allocates on the heap being measured. Values below 128 are
+ * exact; larger values fall into buckets 1/64 of their power of two wide, so a
+ * reported percentile is at most about 1.6% above the true sample. The count,
+ * total, minimum and maximum are exact.
+ */
+public class LatencyRecorder {
+    /** Values below this are counted exactly, one bucket each */
+    private static final int LINEAR_BUCKETS = 128;
+    /** Buckets per power of two above the linear range */
+    private static final int SUB_BUCKETS = LINEAR_BUCKETS / 2;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records one sample. Negative values are recorded as zero.
+     * @param value The sample value, in any unit as long as it is consistent
+     */
+    public synchronized void record(long value) {
+        long sample = Math.max(0, value);
+        buckets[bucketIndex(sample)]++;
+        count++;
+        total += sample;
+        min = Math.min(min, sample);
+        max = Math.max(max, sample);
+    }
+
+    /**
+     * @return The number of samples recorded
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The sum of all samples
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Computes percentiles using the nearest-rank method.
+     * Each value is the upper bound of the bucket holding the ranked sample,
+     * kept within the exact minimum and maximum.
+     * @param percentiles The requested percentiles in the range 0-100
+     * @return The value at each requested percentile, or zeros if no samples were recorded
+     */
+    public synchronized long[] percentiles(double... percentiles) {
+        long[] result = new long[percentiles.length];
+        if (count == 0) {
+            return result;
+        }
+        for (int i = 0; i < percentiles.length; i++) {
+            long rank = Math.max(1, Math.min(count, (long) Math.ceil(percentiles[i] / 100.0 * count)));
+            long seen = 0;
+            int bucket = 0;
+            while (seen + buckets[bucket] < rank) {
+                seen += buckets[bucket++];
+            }
+            result[i] = Math.max(min, Math.min(max, bucketUpperBound(bucket)));
+        }
+        return result;
+    }
+
+    /**
+     * Maps a non-negative value to its bucket. Above the linear range, the bucket
+     * is given by the value's power of two and its next SUB_BUCKET_BITS bits.
+     */
+    static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return The largest value that falls into the bucket
+     */
+    static long bucketUpperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket - (long) shift * SUB_BUCKETS;
+        return (subBucket << shift) + ((1L << shift) - 1);
+    }
+}
@@ -0,0 +1,390 @@
+package loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import models.*;
+import utils.PropertyLoader;
+
+/**
+ * Synthetic load generator and soak-test harness.
+ *
+ * Builds a synthetic building of configurable size and room mix, then drives
+ * random setpoint changes, room churn (one removal plus one addition) and
+ * GUI-style reads at fixed rates for a fixed duration. Throughout each stage it
+ * measures control-loop tick lag and overruns, GC pauses, heap usage and thread count.
+ *
+ * In ramp mode the building is grown stage by stage until a stage falls behind,
+ * which yields the largest room count the node sustained. A stage keeps up only
+ * if its 99th percentile tick lag is within the configured threshold, no more
+ * ticks overran than allowed and no room ended it at a coarsened interval; lag
+ * alone is not enough, since SKIP and DEGRADE keep lag low by dropping ticks. Results are written as a JSON report.
+ *
+ * Defaults come from the 'loadtest.*' properties and can be overridden on the
+ * command line as --key=value, e.g. {@code --rooms=5000 --duration.seconds=30}.
+ */
+public class LoadGenerator {
+    private static final String OP_SETPOINT = "setpoint";
+    private static final String OP_ADD_ROOM = "addRoom";
+    private static final String OP_REMOVE_ROOM = "removeRoom";
+    private static final String OP_READ = "read";
+
+    private static final String[] SETTINGS = {
+            "rooms", "apartment.ratio", "duration.seconds", "setpoint.rate", "churn.rate", "read.rate",
+            "probe.interval.ms", "lag.threshold.ms", "max.overruns", "ramp.step", "ramp.max.rooms", "report.file"
+    };
+
+    /** Number of rooms whose tick lag is sampled on each probe */
+    private static final int ROOMS_PER_PROBE = 16;
+
+    /** Progress goes to the real console, which is kept aside while stdout is silenced */
+    private static PrintStream console = System.out;
+
+    private final Map<String, String> config;
+    private final Building building = new Building(25.0);
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /** Overruns of rooms removed by churn, which no longer show up in the building */
+    private final AtomicLong removedRoomOverruns = new AtomicLong();
+
+    /** Stage currently receiving GC pause notifications */
+    private volatile StageResult currentStage;
+
+    /**
+     * Constructs a new LoadGenerator.
+     * @param config Effective settings keyed without the 'loadtest.' prefix
+     */
+    public LoadGenerator(Map<String, String> config) {
+        this.config = config;
+    }
+
+    /**
+     * Runs every stage and collects the results.
+     * In ramp mode stages continue until one fails to keep up or the room limit is reached.
+     * @return The report covering all completed stages
+     */
+    public LoadReport run() {
+        LoadReport report = new LoadReport(config);
+        listenForGcPauses();
+        building.startRecalculationTask();
+
+        int rooms = getInt("rooms");
+        int rampStep = getInt("ramp.step");
+        int rampMax = getInt("ramp.max.rooms");
+        try {
+            while (true) {
+                StageResult stage = runStage(rooms);
+                report.addStage(stage);
+                if (rampStep <= 0 || !stage.isKeepingUp() || rooms + rampStep > rampMax) {
+                    break;
+                }
+                rooms += rampStep;
+            }
+        } finally {
+            building.stopRecalculationTask();
+        }
+        return report;
+    }
+
+    /**
+     * Grows the building to the target size and holds it under load for one stage.
+     * @param targetRooms The room count for this stage
+     * @return The stage measurements
+     */
+    private StageResult runStage(int targetRooms) {
+        while (building.getRooms().size() < targetRooms) {
+            building.addRoom(newRoom());
+        }
+        StageResult stage = new StageResult(targetRooms, OP_SETPOINT, OP_ADD_ROOM, OP_REMOVE_ROOM, OP_READ);
+        log("Stage: " + targetRooms + " rooms for " + getInt("duration.seconds") + "s");
+
+        long gcCountBefore = gcCount(false);
+        long gcTimeBefore = gcTime(false);
+        long cycleCountBefore = gcCount(true);
+        long cycleTimeBefore = gcTime(true);
+        long overrunsBefore = totalOverruns();
+        threads.resetPeakThreadCount();
+        currentStage = stage;
+
+        ScheduledExecutorService drivers = Executors.newScheduledThreadPool(4);
+        scheduleAtRate(drivers, getDouble("setpoint.rate"), () -> timed(stage, OP_SETPOINT, () ->
+                building.setRequestedTemperature(16 + ThreadLocalRandom.current().nextDouble() * 12)));
+        scheduleAtRate(drivers, getDouble("churn.rate"), () -> {
+            timed(stage, OP_REMOVE_ROOM, this::removeRandomRoom);
+            timed(stage, OP_ADD_ROOM, () -> building.addRoom(newRoom()));
+        });
+        scheduleAtRate(drivers, getDouble("read.rate"), () -> timed(stage, OP_READ, this::readAllRooms));
+
+        // The probe gets its own thread so slow operations cannot delay it
+        ScheduledExecutorService probe = Executors.newSingleThreadScheduledExecutor();
+        long probePeriod = TimeUnit.MILLISECONDS.toNanos(getInt("probe.interval.ms"));
+        long start = System.nanoTime();
+        probe.scheduleAtFixedRate(new LagProbe(stage, start, probePeriod), 0, probePeriod, TimeUnit.NANOSECONDS);
+
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(getInt("duration.seconds")));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        probe.shutdownNow();
+        drivers.shutdownNow();
+        try {
+            drivers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        currentStage = null;
+        long overruns = totalOverruns() - overrunsBefore;
+        int degraded = 0;
+        for (Room room : building.getRooms()) {
+            if (room.getTemperatureScheduler().isDegraded()) {
+                degraded++;
+            }
+        }
+        stage.setOverruns(overruns);
+        stage.setDegradedRooms(degraded);
+        stage.setDurationNanos(System.nanoTime() - start);
+        stage.setFinalRooms(building.getRooms().size());
+        stage.setGcCollections(gcCount(false) - gcCountBefore);
+        stage.setGcTimeMillis(gcTime(false) - gcTimeBefore);
+        stage.setGcConcurrentCycles(gcCount(true) - cycleCountBefore);
+        stage.setGcConcurrentCycleMillis(gcTime(true) - cycleTimeBefore);
+        stage.setHeapCommittedBytes(memory.getHeapMemoryUsage().getCommitted());
+        stage.setPeakThreads(threads.getPeakThreadCount());
+        long p99LagMicros = stage.getTickLagMicros().percentiles(99)[0];
+        stage.setKeepingUp(p99LagMicros <= TimeUnit.MILLISECONDS.toMicros(getInt("lag.threshold.ms"))
+                && overruns <= getInt("max.overruns") && degraded == 0);
+        log(String.format("  p99 tick lag %.1f ms, %d overruns, %d degraded rooms, %d GCs, peak %d threads -> %s",
+                p99LagMicros / 1000.0, overruns, degraded, stage.getGcCollections(), stage.getPeakThreads(),
+                stage.isKeepingUp() ? "keeping up" : "falling behind"));
+        return stage;
+    }
+
+    /**
+     * Periodically samples control-loop lag and heap usage.
+     * Each run records the current tick lag of a few random rooms, and its own lag:
+     * the probe runs at a fixed rate, so each execution has an exact nominal start
+     * time and any delay reflects thread oversubscription or GC stalls on the node.
+     */
+    private class LagProbe implements Runnable {
+        private final StageResult stage;
+        private final long start;
+        private final long period;
+        private long tick;
+
+        LagProbe(StageResult stage, long start, long period) {
+            this.stage = stage;
+            this.start = start;
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            long deadline = start + tick++ * period;
+            stage.getProbeLagMicros().record(Math.max(0, (System.nanoTime() - deadline) / 1000));
+            List<Room> rooms = building.getRooms();
+            for (int i = 0; i < ROOMS_PER_PROBE && !rooms.isEmpty(); i++) {
+                Room room = rooms.get(ThreadLocalRandom.current().nextInt(rooms.size()));
+                stage.getTickLagMicros().record((long) (room.getTemperatureScheduler().getCurrentLagMillis() * 1000));
+            }
+            stage.getHeapUsedBytes().record(memory.getHeapMemoryUsage().getUsed());
+        }
+    }
+
+    private static void scheduleAtRate(ScheduledExecutorService executor, double perSecond, Runnable task) {
+        if (perSecond <= 0) {
+            return;
+        }
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        executor.scheduleAtFixedRate(task, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    private static void timed(StageResult stage, String operation, Runnable action) {
+        long begin = System.nanoTime();
+        action.run();
+        stage.getOperation(operation).record((System.nanoTime() - begin) / 1000);
+    }
+
+    private Room newRoom() {
+        if (ThreadLocalRandom.current().nextDouble() < getDouble("apartment.ratio")) {
+            return new Apartment("Tenant " + ThreadLocalRandom.current().nextInt(1_000_000));
+        }
+        CommonRoom.RoomType[] types = CommonRoom.RoomType.values();
+        return new CommonRoom(types[ThreadLocalRandom.current().nextInt(types.length)]);
+    }
+
+    private void removeRandomRoom() {
+        List<Room> rooms = building.getRooms();
+        int size = rooms.size();
+        if (size > 0) {
+            Room room = rooms.get(ThreadLocalRandom.current().nextInt(size));
+            building.removeRoom(room);
+            removedRoomOverruns.addAndGet(room.getTemperatureScheduler().getOverrunCount());
+        }
+    }
+
+    /**
+     * @return Overruns of the building and of every room it has ever held, since startup
+     */
+    private long totalOverruns() {
+        long overruns = building.getRecalculationScheduler().getOverrunCount() + removedRoomOverruns.get();
+        for (Room room : building.getRooms()) {
+            overruns += room.getTemperatureScheduler().getOverrunCount();
+        }
+        return overruns;
+    }
+
+    /**
+     * Reads every room the way the GUI refresh does, formatting its display line.
+     */
+    private void readAllRooms() {
+        List<String> lines = new ArrayList<>();
+        for (Room room : building.getRooms()) {
+            if (room instanceof Apartment) {
+                Apartment apt = (Apartment) room;
+                lines.add("Apt " + apt.getApartmentNumber() +
+                        " - Owner: " + apt.getOwnerName() +
+                        " - Temp: " + String.format("%.2f", apt.getCurrentTemperature()));
+            } else if (room instanceof CommonRoom) {
+                CommonRoom cr = (CommonRoom) room;
+                lines.add("ID: " + cr.getId() +
+                        " - Type: " + cr.getType() +
+                        " - Temp: " + String.format("%.2f", cr.getCurrentTemperature()));
+            }
+        }
+    }
+
+    private void listenForGcPauses() {
+        NotificationListener listener = (Notification notification, Object handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            StageResult stage = currentStage;
+            if (stage != null) {
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                if (isPause(info)) {
+                    stage.getGcPauseMillis().record(info.getGcInfo().getDuration());
+                }
+            }
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+            }
+        }
+    }
+
+    /**
+     * Concurrent collectors such as ZGC and Shenandoah report each whole cycle,
+     * which runs alongside the application, in addition to its short pauses;
+     * only the pauses stop the control loop.
+     */
+    private static boolean isPause(GarbageCollectionNotificationInfo info) {
+        return !info.getGcAction().endsWith("GC cycle") && !isConcurrentCycles(info.getGcName());
+    }
+
+    /**
+     * @return true for the collectors ZGC and Shenandoah use to report whole concurrent cycles
+     */
+    private static boolean isConcurrentCycles(String collectorName) {
+        return collectorName.endsWith("Cycles");
+    }
+
+    /**
+     * @param concurrentCycles true to count concurrent cycles, false to count pausing collections
+     * @return Collections so far by the matching collectors
+     */
+    private static long gcCount(boolean concurrentCycles) {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (isConcurrentCycles(gc.getName()) == concurrentCycles) {
+                total += Math.max(0, gc.getCollectionCount());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @param concurrentCycles true to time concurrent cycles, false to time pausing collections
+     * @return Milliseconds spent so far by the matching collectors
+     */
+    private static long gcTime(boolean concurrentCycles) {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (isConcurrentCycles(gc.getName()) == concurrentCycles) {
+                total += Math.max(0, gc.getCollectionTime());
+            }
+        }
+        return total;
+    }
+
+    private int getInt(String key) {
+        return Integer.parseInt(config.get(key));
+    }
+
+    private double getDouble(String key) {
+        return Double.parseDouble(config.get(key));
+    }
+
+    private static void log(String message) {
+        console.println(message);
+    }
+
+    /**
+     * Runs the load generator and writes the JSON report.
+     * @param args Optional --key=value overrides of the 'loadtest.*' properties
+     * @throws IOException if the report cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> config = new LinkedHashMap<>();
+        for (String key : SETTINGS) {
+            config.put(key, PropertyLoader.getProperty("loadtest." + key));
+        }
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = arg.startsWith("--") && eq > 2 ? arg.substring(2, eq) : null;
+            if (key == null || !config.containsKey(key)) {
+                System.err.println("Unknown argument: " + arg);
+                System.err.println("Supported: " + String.join(", ", SETTINGS) + " as --key=value");
+                System.exit(1);
+            }
+            config.put(key, arg.substring(eq + 1));
+        }
+
+        // The building's periodic room dump still runs at full cost but is
+        // discarded, so large buildings do not flood the terminal
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        LoadReport report = new LoadGenerator(config).run();
+        Path file = Paths.get(config.get("report.file"));
+        report.write(file);
+        int sustained = report.getMaxSustainedRooms();
+        log("Report written to " + file.toAbsolutePath());
+        log(sustained < 0 ? "No stage kept up" : "Max sustained rooms: " + sustained);
+    }
+}
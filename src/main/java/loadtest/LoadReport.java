@@ -0,0 +1,204 @@
+package loadtest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Machine-readable summary of a load generator run.
+ * The report is written as a single JSON document so successive runs can be
+ * compared by scripts to track regressions. Latencies are reported in
+ * microseconds, tick lag in milliseconds and memory in bytes. Tick lag is how
+ * late room temperature ticks start; probe lag is the same measure for a
+ * dedicated fixed-rate task and reflects scheduling delay on the node as a whole.
+ */
+public class LoadReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999", "max"};
+
+    private final Map<String, String> config;
+    private final List<StageResult> stages = new ArrayList<>();
+    private final Instant startedAt = Instant.now();
+
+    /**
+     * Constructs a new LoadReport.
+     * @param config The effective generator settings, echoed into the report
+     */
+    public LoadReport(Map<String, String> config) {
+        this.config = config;
+    }
+
+    /**
+     * Appends a finished stage to the report.
+     * @param stage The stage result
+     */
+    public void addStage(StageResult stage) {
+        stages.add(stage);
+    }
+
+    /**
+     * @return The largest room count whose stage kept up, or -1 if none did
+     */
+    public int getMaxSustainedRooms() {
+        int max = -1;
+        for (StageResult stage : stages) {
+            if (stage.isKeepingUp()) {
+                max = Math.max(max, stage.getTargetRooms());
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Writes the report to a file as JSON.
+     * @param file The destination file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+    }
+
+    /**
+     * @return The report as a JSON document
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"startedAt\": ").append(quote(startedAt.toString())).append(",\n");
+        sb.append("  \"jvm\": {")
+                .append("\"version\": ").append(quote(System.getProperty("java.version")))
+                .append(", \"availableProcessors\": ").append(Runtime.getRuntime().availableProcessors())
+                .append(", \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory())
+                .append(", \"gcCollectors\": ").append(quote(collectorNames()))
+                .append("},\n");
+
+        sb.append("  \"config\": {");
+        String separator = "";
+        for (Map.Entry<String, String> entry : config.entrySet()) {
+            sb.append(separator).append(quote(entry.getKey())).append(": ").append(quote(entry.getValue()));
+            separator = ", ";
+        }
+        sb.append("},\n");
+
+        int maxSustained = getMaxSustainedRooms();
+        sb.append("  \"maxSustainedRooms\": ").append(maxSustained < 0 ? "null" : String.valueOf(maxSustained)).append(",\n");
+
+        sb.append("  \"stages\": [");
+        for (int i = 0; i < stages.size(); i++) {
+            sb.append(i == 0 ? "\n" : ",\n");
+            appendStage(sb, stages.get(i));
+        }
+        sb.append("\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    private static void appendStage(StringBuilder sb, StageResult stage) {
+        double seconds = stage.getDurationNanos() / 1e9;
+        sb.append("    {\n");
+        sb.append("      \"targetRooms\": ").append(stage.getTargetRooms()).append(",\n");
+        sb.append("      \"finalRooms\": ").append(stage.getFinalRooms()).append(",\n");
+        sb.append("      \"durationSeconds\": ").append(format(seconds)).append(",\n");
+        sb.append("      \"keepingUp\": ").append(stage.isKeepingUp()).append(",\n");
+
+        sb.append("      \"operations\": {");
+        String separator = "\n";
+        for (Map.Entry<String, LatencyRecorder> entry : stage.getOperations().entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            sb.append(separator).append("        ").append(quote(entry.getKey())).append(": {")
+                    .append("\"count\": ").append(recorder.getCount())
+                    .append(", \"throughputPerSecond\": ").append(format(seconds > 0 ? recorder.getCount() / seconds : 0))
+                    .append(", \"latencyMicros\": ");
+            appendPercentiles(sb, recorder, 1);
+            sb.append("}");
+            separator = ",\n";
+        }
+        sb.append("\n      },\n");
+
+        sb.append("      \"tickLagMillis\": ");
+        appendPercentiles(sb, stage.getTickLagMicros(), 1000);
+        sb.append(",\n");
+
+        sb.append("      \"probeLagMillis\": ");
+        appendPercentiles(sb, stage.getProbeLagMicros(), 1000);
+        sb.append(",\n");
+
+        sb.append("      \"controlLoop\": {")
+                .append("\"overruns\": ").append(stage.getOverruns())
+                .append(", \"degradedRooms\": ").append(stage.getDegradedRooms())
+                .append("},\n");
+
+        LatencyRecorder pauses = stage.getGcPauseMillis();
+        sb.append("      \"gc\": {")
+                .append("\"collections\": ").append(stage.getGcCollections())
+                .append(", \"totalTimeMillis\": ").append(stage.getGcTimeMillis())
+                .append(", \"concurrentCycles\": ").append(stage.getGcConcurrentCycles())
+                .append(", \"concurrentCycleMillis\": ").append(stage.getGcConcurrentCycleMillis())
+                .append(", \"pauseMillis\": ");
+        appendPercentiles(sb, pauses, 1);
+        sb.append("},\n");
+
+        LatencyRecorder heap = stage.getHeapUsedBytes();
+        long[] heapMax = heap.percentiles(100);
+        sb.append("      \"heap\": {")
+                .append("\"maxUsedBytes\": ").append(heapMax[0])
+                .append(", \"avgUsedBytes\": ").append(heap.getCount() == 0 ? 0 : heap.getTotal() / heap.getCount())
+                .append(", \"committedBytes\": ").append(stage.getHeapCommittedBytes())
+                .append("},\n");
+
+        sb.append("      \"peakThreads\": ").append(stage.getPeakThreads()).append("\n");
+        sb.append("    }");
+    }
+
+    /**
+     * Appends the standard percentile set of a recorder as a JSON object.
+     * @param divisor Scale applied to every value before output
+     */
+    private static void appendPercentiles(StringBuilder sb, LatencyRecorder recorder, double divisor) {
+        long[] values = recorder.percentiles(PERCENTILES);
+        sb.append("{\"samples\": ").append(recorder.getCount());
+        for (int i = 0; i < values.length; i++) {
+            sb.append(", ").append(quote(PERCENTILE_NAMES[i])).append(": ").append(format(values[i] / divisor));
+        }
+        sb.append("}");
+    }
+
+    private static String collectorNames() {
+        List<String> names = new ArrayList<>();
+        ManagementFactory.getGarbageCollectorMXBeans().forEach(gc -> names.add(gc.getName()));
+        return String.join(", ", names);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
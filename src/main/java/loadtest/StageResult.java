@@ -0,0 +1,248 @@
+package loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measurements collected while the load generator holds the building at one size.
+ * Recorders are filled concurrently by the driver threads while the stage runs;
+ * the scalar fields are set by the generator once the stage has finished.
+ */
+public class StageResult {
+    private final int targetRooms;
+    private final Map<String, LatencyRecorder> operations = new LinkedHashMap<>();
+    private final LatencyRecorder tickLagMicros = new LatencyRecorder();
+    private final LatencyRecorder probeLagMicros = new LatencyRecorder();
+    private final LatencyRecorder gcPauseMillis = new LatencyRecorder();
+    private final LatencyRecorder heapUsedBytes = new LatencyRecorder();
+
+    private long durationNanos;
+    private int finalRooms;
+    private long gcCollections;
+    private long gcTimeMillis;
+    private long gcConcurrentCycles;
+    private long gcConcurrentCycleMillis;
+    private long heapCommittedBytes;
+    private int peakThreads;
+    private long overruns;
+    private int degradedRooms;
+    private boolean keepingUp;
+
+    /**
+     * Constructs a new StageResult for a building of the given size.
+     * @param targetRooms The room count the stage is run at
+     * @param operationNames The operations driven during the stage, in report order
+     */
+    public StageResult(int targetRooms, String... operationNames) {
+        this.targetRooms = targetRooms;
+        for (String name : operationNames) {
+            operations.put(name, new LatencyRecorder());
+        }
+    }
+
+    /**
+     * @return The room count the stage is run at
+     */
+    public int getTargetRooms() {
+        return targetRooms;
+    }
+
+    /**
+     * @param name The operation name
+     * @return The latency recorder (in microseconds) for the operation
+     */
+    public LatencyRecorder getOperation(String name) {
+        return operations.get(name);
+    }
+
+    /**
+     * @return Latency recorders (in microseconds) keyed by operation name
+     */
+    public Map<String, LatencyRecorder> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @return Recorder for control-loop tick lag in microseconds, sampled from room schedulers
+     */
+    public LatencyRecorder getTickLagMicros() {
+        return tickLagMicros;
+    }
+
+    /**
+     * @return Recorder for the lag of the generator's own fixed-rate probe in microseconds
+     */
+    public LatencyRecorder getProbeLagMicros() {
+        return probeLagMicros;
+    }
+
+    /**
+     * @return Recorder for individual GC pause durations in milliseconds
+     */
+    public LatencyRecorder getGcPauseMillis() {
+        return gcPauseMillis;
+    }
+
+    /**
+     * @return Recorder for periodic heap usage samples in bytes
+     */
+    public LatencyRecorder getHeapUsedBytes() {
+        return heapUsedBytes;
+    }
+
+    /**
+     * @return Wall-clock length of the stage in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @param durationNanos Wall-clock length of the stage in nanoseconds
+     */
+    public void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * @return The room count when the stage ended, after churn
+     */
+    public int getFinalRooms() {
+        return finalRooms;
+    }
+
+    /**
+     * @param finalRooms The room count when the stage ended
+     */
+    public void setFinalRooms(int finalRooms) {
+        this.finalRooms = finalRooms;
+    }
+
+    /**
+     * @return Pausing GC collections completed during the stage; concurrent cycles are counted separately
+     */
+    public long getGcCollections() {
+        return gcCollections;
+    }
+
+    /**
+     * @param gcCollections Pausing GC collections completed during the stage
+     */
+    public void setGcCollections(long gcCollections) {
+        this.gcCollections = gcCollections;
+    }
+
+    /**
+     * @return Time spent in pausing GC collections during the stage, in milliseconds
+     */
+    public long getGcTimeMillis() {
+        return gcTimeMillis;
+    }
+
+    /**
+     * @param gcTimeMillis Time spent in pausing GC collections during the stage, in milliseconds
+     */
+    public void setGcTimeMillis(long gcTimeMillis) {
+        this.gcTimeMillis = gcTimeMillis;
+    }
+
+    /**
+     * @return Concurrent GC cycles completed during the stage, as reported by ZGC and Shenandoah
+     */
+    public long getGcConcurrentCycles() {
+        return gcConcurrentCycles;
+    }
+
+    /**
+     * @param gcConcurrentCycles Concurrent GC cycles completed during the stage
+     */
+    public void setGcConcurrentCycles(long gcConcurrentCycles) {
+        this.gcConcurrentCycles = gcConcurrentCycles;
+    }
+
+    /**
+     * @return Time concurrent GC cycles ran alongside the application during the stage, in milliseconds
+     */
+    public long getGcConcurrentCycleMillis() {
+        return gcConcurrentCycleMillis;
+    }
+
+    /**
+     * @param gcConcurrentCycleMillis Time concurrent GC cycles ran during the stage, in milliseconds
+     */
+    public void setGcConcurrentCycleMillis(long gcConcurrentCycleMillis) {
+        this.gcConcurrentCycleMillis = gcConcurrentCycleMillis;
+    }
+
+    /**
+     * @return Committed heap size when the stage ended, in bytes
+     */
+    public long getHeapCommittedBytes() {
+        return heapCommittedBytes;
+    }
+
+    /**
+     * @param heapCommittedBytes Committed heap size when the stage ended, in bytes
+     */
+    public void setHeapCommittedBytes(long heapCommittedBytes) {
+        this.heapCommittedBytes = heapCommittedBytes;
+    }
+
+    /**
+     * @return The highest live thread count seen during the stage
+     */
+    public int getPeakThreads() {
+        return peakThreads;
+    }
+
+    /**
+     * @param peakThreads The highest live thread count seen during the stage
+     */
+    public void setPeakThreads(int peakThreads) {
+        this.peakThreads = peakThreads;
+    }
+
+    /**
+     * @return Overrun ticks during the stage, counted over the building's recalculation
+     * scheduler and every room it held, including rooms removed by churn
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * @param overruns Overrun ticks during the stage
+     */
+    public void setOverruns(long overruns) {
+        this.overruns = overruns;
+    }
+
+    /**
+     * @return Rooms running at a coarsened interval at the end of the stage
+     */
+    public int getDegradedRooms() {
+        return degradedRooms;
+    }
+
+    /**
+     * @param degradedRooms Rooms running at a coarsened interval when the stage ended
+     */
+    public void setDegradedRooms(int degradedRooms) {
+        this.degradedRooms = degradedRooms;
+    }
+
+    /**
+     * @return true if tick lag stayed within the configured threshold, overruns stayed
+     * within the allowed number and no room ended the stage degraded
+     */
+    public boolean isKeepingUp() {
+        return keepingUp;
+    }
+
+    /**
+     * @param keepingUp Whether the stage kept up with its control loop
+     */
+    public void setKeepingUp(boolean keepingUp) {
+        this.keepingUp = keepingUp;
+    }
+}
@@ -1,5 +1,7 @@
 package models;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import utils.PropertyLoader;
 
 /**
@@ -9,7 +11,8 @@ import utils.PropertyLoader;
  */
 public class Apartment extends Room {
     /** Starting number for apartment numbering sequence */
-    private static int nextApartmentNumber = PropertyLoader.getIntProperty("apartment.starting.number");
+    private static final AtomicInteger nextApartmentNumber =
+            new AtomicInteger(PropertyLoader.getIntProperty("apartment.starting.number"));
 
     private String ownerName;
     private final int apartmentNumber;
@@ -22,7 +25,19 @@ public class Apartment extends Room {
     public Apartment(String ownerName) {
         super();
         this.ownerName = ownerName;
-        this.apartmentNumber = nextApartmentNumber++;
+        this.apartmentNumber = nextApartmentNumber.getAndIncrement();
+    }
+
+    /**
+     * Constructs a new Apartment with specified owner and room identifier.
+     * The apartment number is still assigned automatically.
+     * @param ownerName The name of the apartment owner
+     * @param roomId The room identifier
+     */
+    public Apartment(String ownerName, int roomId) {
+        super(roomId);
+        this.ownerName = ownerName;
+        this.apartmentNumber = nextApartmentNumber.getAndIncrement();
     }
 
     /**
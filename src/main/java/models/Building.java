@@ -1,12 +1,10 @@
 package models;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import utils.PropertyLoader;
+import utils.TickScheduler;
 
 /**
  * Represents a building with multiple rooms and centralized temperature control.
@@ -16,14 +14,17 @@ import utils.PropertyLoader;
 public class Building {
     private List<Room> rooms;
     private double requestedTemperature;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final TickScheduler scheduler = new TickScheduler(
+            PropertyLoader.getDoubleProperty("building.recalculation.interval"), this::scheduledRecalculation);
 
     /**
      * Constructs a new Building with specified target temperature.
      * @param requestedTemperature The initial target temperature for all rooms
      */
     public Building(double requestedTemperature) {
-        this.rooms = new ArrayList<>();
+        // Copy-on-write so rooms can be added from GUI or network threads while
+        // the recalculation task iterates over them
+        this.rooms = new CopyOnWriteArrayList<>();
         this.requestedTemperature = requestedTemperature;
     }
 
@@ -35,6 +36,19 @@ public class Building {
         rooms.add(room);
     }
 
+    /**
+     * Removes a room from the building and stops its temperature adjustment.
+     * @param room The room to be removed
+     * @return true if the room was part of the building, false otherwise
+     */
+    public boolean removeRoom(Room room) {
+        boolean removed = rooms.remove(room);
+        if (removed) {
+            room.stopTemperatureAdjustment();
+        }
+        return removed;
+    }
+
     /**
      * @return List of all rooms in the building
      */
@@ -70,18 +84,32 @@ public class Building {
         }
     }
 
+    /**
+     * @return The scheduler driving periodic recalculation, for lag monitoring
+     */
+    public TickScheduler getRecalculationScheduler() {
+        return scheduler;
+    }
+
     /**
      * Initiates periodic temperature recalculation task.
-     * Runs every 10 seconds to ensure all rooms maintain target temperature.
+     * Runs every 'building.recalculation.interval' seconds to ensure all rooms
+     * maintain target temperature.
      */
     public void startRecalculationTask() {
-        scheduler.scheduleAtFixedRate(() -> {
-            recalculateRooms();
-            System.out.println("Scheduled Recalculation Performed:");
-            for (Room room : rooms) {
-                System.out.println(room);
-            }
-        }, 0, 10, TimeUnit.SECONDS);
+        scheduler.start();
+    }
+
+    /**
+     * Periodic recalculation tick: adjusts all rooms and logs their state.
+     * @param elapsedSeconds Time since the previous tick, unused since recalculation is stateless
+     */
+    private void scheduledRecalculation(double elapsedSeconds) {
+        recalculateRooms();
+        System.out.println("Scheduled Recalculation Performed:");
+        for (Room room : rooms) {
+            System.out.println(room);
+        }
     }
 
     /**
@@ -89,7 +117,7 @@ public class Building {
      * Shuts down the scheduler and stops temperature adjustment in all rooms.
      */
     public void stopRecalculationTask() {
-        scheduler.shutdown();
+        scheduler.stop();
         for (Room room : rooms) {
             room.stopTemperatureAdjustment();
         }
@@ -25,6 +25,16 @@ public class CommonRoom extends Room {
         this.type = type;
     }
 
+    /**
+     * Constructs a new CommonRoom with specified type and room identifier.
+     * @param type The type of common room (e.g., GYM, LIBRARY, LAUNDRY)
+     * @param roomId The room identifier
+     */
+    public CommonRoom(RoomType type, int roomId) {
+        super(roomId);
+        this.type = type;
+    }
+
     /**
      * @return The type of common room
      */
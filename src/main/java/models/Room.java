@@ -1,10 +1,9 @@
 package models;
 
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import utils.PropertyLoader;
+import utils.TickScheduler;
 
 /**
  * Represents a room in the building with temperature control capabilities.
@@ -12,28 +11,39 @@ import utils.PropertyLoader;
  * with the ability to heat or cool the space to reach a target temperature.
  */
 public class Room {
-    private static int idCounter = 1;
+    private static final AtomicInteger idCounter = new AtomicInteger(1);
 
     private final int id;
     private double currentTemperature;
     private boolean heatingEnabled;
     private boolean coolingEnabled;
 
-    /** Rate at which temperature changes when heating/cooling is active */
+    /** Temperature change per update interval when heating/cooling is active */
     private static final double TEMP_CHANGE_RATE = PropertyLoader.getDoubleProperty("temperature.change.rate");
     
     /** Interval (in seconds) between temperature updates */
     private static final double TEMP_UPDATE_INTERVAL = PropertyLoader.getDoubleProperty("temperature.update.interval");
 
     /** Scheduler for managing temperature adjustment tasks */
-    private final ScheduledExecutorService temperatureScheduler = Executors.newScheduledThreadPool(1);
+    private final TickScheduler temperatureScheduler = new TickScheduler(TEMP_UPDATE_INTERVAL, this::adjustTemperature);
 
     /**
      * Constructs a new Room with a randomly initialized temperature.
      * Starts the temperature adjustment monitoring system.
      */
     public Room() {
-        this.id = idCounter++;
+        this(idCounter.getAndIncrement());
+    }
+
+    /**
+     * Constructs a new Room with an identifier assigned by the caller,
+     * e.g. a coordinator keeping replicated shards in step.
+     * @param id The room identifier
+     */
+    protected Room(int id) {
+        this.id = id;
+        // Keep automatically assigned ids clear of explicitly assigned ones
+        idCounter.accumulateAndGet(id + 1, Math::max);
         // Initialize with random temperature between 10°C and 40°C
         this.currentTemperature = new Random().nextDouble() * (40 - 10) + 10;
         this.heatingEnabled = false;
@@ -86,18 +96,34 @@ public class Room {
         this.coolingEnabled = enable;
     }
 
+    /**
+     * @return The scheduler driving this room's temperature updates, for lag monitoring
+     */
+    public TickScheduler getTemperatureScheduler() {
+        return temperatureScheduler;
+    }
+
     /**
      * Initiates periodic temperature adjustment based on heating/cooling status.
-     * Runs on a fixed schedule defined by TEMP_UPDATE_INTERVAL.
+     * Ticks every TEMP_UPDATE_INTERVAL seconds.
      */
     private void startTemperatureAdjustment() {
-        temperatureScheduler.scheduleAtFixedRate(() -> {
-            if (heatingEnabled) {
-                currentTemperature += TEMP_CHANGE_RATE;
-            } else if (coolingEnabled) {
-                currentTemperature -= TEMP_CHANGE_RATE;
-            }
-        }, 0, (long) TEMP_UPDATE_INTERVAL, TimeUnit.SECONDS);
+        temperatureScheduler.start();
+    }
+
+    /**
+     * Applies heating or cooling for the time elapsed since the previous tick.
+     * The change is scaled by the actual elapsed time, so a late tick neither
+     * loses nor repeats temperature steps.
+     * @param elapsedSeconds Time since the previous tick, in seconds
+     */
+    private void adjustTemperature(double elapsedSeconds) {
+        double change = TEMP_CHANGE_RATE * elapsedSeconds / TEMP_UPDATE_INTERVAL;
+        if (heatingEnabled) {
+            currentTemperature += change;
+        } else if (coolingEnabled) {
+            currentTemperature -= change;
+        }
     }
 
     /**
@@ -123,7 +149,7 @@ public class Room {
      * Should be called when the room is no longer in use.
      */
     public void stopTemperatureAdjustment() {
-        temperatureScheduler.shutdown();
+        temperatureScheduler.stop();
     }
 
     @Override
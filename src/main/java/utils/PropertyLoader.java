@@ -8,6 +8,8 @@ import java.util.Properties;
  * Utility class for loading and accessing application properties.
  * Provides type-safe access to configuration values stored in application.properties file.
  * Properties are loaded once during class initialization.
+ * A JVM system property with the same key (e.g. -Dtemperature.threshold=0.5)
+ * takes precedence over the value in the file.
  */
 public class PropertyLoader {
     private static final Properties properties = new Properties();
@@ -35,7 +37,7 @@ public class PropertyLoader {
      * @throws NumberFormatException if the property value cannot be parsed as a double
      */
     public static double getDoubleProperty(String key) {
-        return Double.parseDouble(properties.getProperty(key));
+        return Double.parseDouble(getProperty(key));
     }
 
     /**
@@ -45,7 +47,7 @@ public class PropertyLoader {
      * @throws NumberFormatException if the property value cannot be parsed as an integer
      */
     public static int getIntProperty(String key) {
-        return Integer.parseInt(properties.getProperty(key));
+        return Integer.parseInt(getProperty(key));
     }
 
     /**
@@ -54,6 +56,6 @@ public class PropertyLoader {
      * @return The property value as a string, or null if the key doesn't exist
      */
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,273 @@
+package utils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline-aware periodic scheduler for the temperature control loop.
+ *
+ * Unlike {@code scheduleAtFixedRate}, which replays every missed execution in a
+ * burst after a stall, this scheduler runs each tick once, measures how late it
+ * started against its deadline and hands the task the time actually elapsed since
+ * the previous tick. A tick that starts a full period or more late is counted as
+ * an overrun and handled according to the configured {@link OverrunPolicy}.
+ *
+ * Lag and overrun statistics are exposed so callers can detect a control loop
+ * that is falling behind.
+ */
+public class TickScheduler {
+    /**
+     * How a tick that missed one or more deadlines is handled.
+     * Missed executions are never replayed under any policy.
+     */
+    public enum OverrunPolicy {
+        /** Drop the missed periods; the late tick accounts only for the time past them */
+        SKIP,
+        /** Run one tick covering all the elapsed time */
+        MERGE,
+        /** Like MERGE, and also back off to a coarser interval until ticks are on time again */
+        DEGRADE
+    }
+
+    /**
+     * Work performed on every tick.
+     */
+    public interface Tick {
+        /**
+         * @param elapsedSeconds Time to account for in this tick, in seconds
+         */
+        void run(double elapsedSeconds);
+    }
+
+    private final Tick task;
+    private final long nominalPeriodNanos;
+    private final OverrunPolicy policy;
+    private final int maxDegradeFactor;
+    private final int recoveryTicks;
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+    /** Written only by the executor thread; volatile so the pending lag can be sampled */
+    private volatile long nextDeadline;
+    private long lastTickNanos;
+    private int onTimeStreak;
+
+    private volatile long currentPeriodNanos;
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+    private volatile long tickCount;
+    private volatile long overrunCount;
+
+    /**
+     * Constructs a new TickScheduler using the overrun settings from the
+     * 'scheduler.*' properties.
+     * @param periodSeconds The nominal interval between ticks, in seconds
+     * @param task The work to run on every tick
+     */
+    public TickScheduler(double periodSeconds, Tick task) {
+        this(periodSeconds, OverrunPolicy.valueOf(PropertyLoader.getProperty("scheduler.overrun.policy")), task);
+    }
+
+    /**
+     * Constructs a new TickScheduler with an explicit overrun policy.
+     * @param periodSeconds The nominal interval between ticks, in seconds
+     * @param policy How ticks that miss their deadline are handled
+     * @param task The work to run on every tick
+     * @throws IllegalArgumentException if the period is not positive
+     */
+    public TickScheduler(double periodSeconds, OverrunPolicy policy, Tick task) {
+        if (periodSeconds <= 0) {
+            throw new IllegalArgumentException("Tick period must be positive");
+        }
+        this.task = task;
+        this.policy = policy;
+        this.nominalPeriodNanos = (long) (periodSeconds * TimeUnit.SECONDS.toNanos(1));
+        this.currentPeriodNanos = nominalPeriodNanos;
+        this.maxDegradeFactor = PropertyLoader.getIntProperty("scheduler.degrade.max.factor");
+        this.recoveryTicks = PropertyLoader.getIntProperty("scheduler.degrade.recovery.ticks");
+    }
+
+    /**
+     * Starts ticking immediately. The first tick reports zero elapsed time.
+     */
+    public void start() {
+        executor.execute(() -> {
+            begin(System.nanoTime());
+            runTick();
+        });
+    }
+
+    /**
+     * Stops ticking. A tick already in progress is allowed to finish.
+     */
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs one tick and arms the next one.
+     * Always called on the executor thread, so the scheduling state needs no locking.
+     */
+    private void runTick() {
+        long elapsed = advance(System.nanoTime());
+        try {
+            task.run(elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+        } catch (RuntimeException e) {
+            // A failing tick must not silently cancel the loop
+            System.err.println("Scheduled tick failed: " + e);
+        }
+
+        try {
+            executor.schedule(this::runTick, Math.max(0, nextDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Stopped while this tick was running
+        }
+    }
+
+    /**
+     * Makes the first tick due at the given time.
+     * @param now The current time, in {@link System#nanoTime()} units
+     */
+    void begin(long now) {
+        nextDeadline = now;
+        lastTickNanos = now;
+    }
+
+    /**
+     * Accounts for a tick starting at the given time: records its lag, counts an
+     * overrun if it missed a whole period, adjusts the interval under DEGRADE and
+     * moves the next deadline past the current time without replaying missed ones.
+     * @param now The time the tick starts, in {@link System#nanoTime()} units
+     * @return The time the tick should account for, in nanoseconds
+     */
+    long advance(long now) {
+        long period = currentPeriodNanos;
+        long lag = Math.max(0, now - nextDeadline);
+        long missed = lag / period;
+        boolean overrun = missed > 0;
+
+        lastLagNanos = lag;
+        if (lag > maxLagNanos) {
+            maxLagNanos = lag;
+        }
+        tickCount++;
+        if (overrun) {
+            overrunCount++;
+        }
+
+        long elapsed = accountedNanos(policy, now - lastTickNanos, lag, period);
+        lastTickNanos = now;
+
+        if (policy == OverrunPolicy.DEGRADE && adjustPeriod(overrun)) {
+            nextDeadline = now + currentPeriodNanos;
+        } else {
+            // Step over the missed deadlines instead of replaying them
+            nextDeadline += period * (missed + 1);
+        }
+        return elapsed;
+    }
+
+    /**
+     * @return When the next tick is due, in {@link System#nanoTime()} units
+     */
+    long getNextDeadlineNanos() {
+        return nextDeadline;
+    }
+
+    /**
+     * Works out how much time a tick should account for.
+     * SKIP drops only the whole periods that were missed, so ordinary jitter
+     * within a period is still accounted for; the other policies keep it all.
+     * @param policy The overrun policy in effect
+     * @param elapsedNanos Time since the previous tick started
+     * @param lagNanos How late this tick started against its deadline
+     * @param periodNanos The interval in use
+     * @return The time to hand to the task, in nanoseconds
+     */
+    static long accountedNanos(OverrunPolicy policy, long elapsedNanos, long lagNanos, long periodNanos) {
+        if (policy != OverrunPolicy.SKIP) {
+            return elapsedNanos;
+        }
+        long missed = lagNanos / periodNanos;
+        return elapsedNanos - missed * periodNanos;
+    }
+
+    /**
+     * Coarsens the interval on overrun and restores it after a run of on-time ticks.
+     * @return true if the interval changed
+     */
+    private boolean adjustPeriod(boolean overrun) {
+        long period = currentPeriodNanos;
+        if (overrun) {
+            onTimeStreak = 0;
+            currentPeriodNanos = Math.min(period * 2, nominalPeriodNanos * maxDegradeFactor);
+        } else if (period > nominalPeriodNanos && ++onTimeStreak >= recoveryTicks) {
+            onTimeStreak = 0;
+            currentPeriodNanos = Math.max(nominalPeriodNanos, period / 2);
+        }
+        return currentPeriodNanos != period;
+    }
+
+    /**
+     * @return The overrun policy in effect
+     */
+    public OverrunPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return How late the most recent tick started, in milliseconds
+     */
+    public double getLastLagMillis() {
+        return lastLagNanos / 1e6;
+    }
+
+    /**
+     * Unlike {@link #getLastLagMillis()}, this also covers a tick that is due but
+     * has not started yet, so a starved scheduler does not report stale, small lag.
+     * @return How late the scheduler currently is, in milliseconds
+     */
+    public double getCurrentLagMillis() {
+        if (tickCount == 0) {
+            return getLastLagMillis();
+        }
+        long pending = System.nanoTime() - nextDeadline;
+        return Math.max(lastLagNanos, pending) / 1e6;
+    }
+
+    /**
+     * @return The largest lag observed since the scheduler started, in milliseconds
+     */
+    public double getMaxLagMillis() {
+        return maxLagNanos / 1e6;
+    }
+
+    /**
+     * @return The number of ticks run so far
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * @return The number of ticks that started a full period or more late
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * @return The interval currently in use, in milliseconds; larger than nominal while degraded
+     */
+    public double getCurrentPeriodMillis() {
+        return currentPeriodNanos / 1e6;
+    }
+
+    /**
+     * @return true if the interval has been coarsened by the DEGRADE policy
+     */
+    public boolean isDegraded() {
+        return currentPeriodNanos > nominalPeriodNanos;
+    }
+}
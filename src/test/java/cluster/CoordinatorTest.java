@@ -0,0 +1,185 @@
+package cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import models.Apartment;
+import models.Building;
+
+public class CoordinatorTest {
+    private static final int PARTITION = 0;
+
+    private final List<ShardServer> servers = new ArrayList<>();
+    private ServerSocket rejectingShard;
+    private Coordinator coordinator;
+
+    @After
+    public void tearDown() {
+        if (coordinator != null) {
+            coordinator.close();
+        }
+        for (ShardServer server : servers) {
+            server.stop();
+        }
+        if (rejectingShard != null) {
+            try {
+                rejectingShard.close();
+            } catch (IOException ignored) {
+                // Test is over either way
+            }
+        }
+        System.clearProperty("coordinator.write.log.max.entries");
+    }
+
+    @Test
+    public void replaysMissedWritesToRestartedEndpoint() throws IOException {
+        ShardServer primary = startShard(newBuilding(), 0);
+        ShardServer standby = startShard(newBuilding(), 0);
+        coordinator = coordinatorFor(primary, standby);
+
+        assertEquals(3, coordinator.addApartment("Zed").getRoomId());
+        assertEquals(1, coordinator.setRequestedTemperature(20));
+
+        primary.stop();
+        Building restarted = newBuilding();
+        startShard(restarted, primary.getPort());
+
+        RoomSnapshot zed = coordinator.getRoom(PARTITION, 3);
+        assertNotNull(zed);
+        assertEquals("Zed", zed.getLabel());
+        assertEquals(3, restarted.getRooms().size());
+        assertEquals(20, restarted.getRequestedTemperature(), 0);
+    }
+
+    @Test
+    public void endpointRejectingWriteIsNotReadFrom() throws IOException {
+        int rejectingPort = startRejectingShard();
+        ShardServer healthy = startShard(newBuilding(), 0);
+        coordinator = new Coordinator();
+        coordinator.addShard(PARTITION, "127.0.0.1", rejectingPort);
+        coordinator.addShard(PARTITION, "127.0.0.1", healthy.getPort());
+
+        assertEquals("Zed", coordinator.addApartment("Zed").getLabel());
+        // The rejecting endpoint is listed first but answers every read with no rooms
+        assertEquals("Zed", coordinator.getRoom(PARTITION, 3).getLabel());
+        assertEquals(3, coordinator.getRooms().size());
+        assertTrue(coordinator.status().get(0).contains("behind"));
+    }
+
+    @Test
+    public void mergesSetpointChangesAndCapsLog() throws IOException {
+        System.setProperty("coordinator.write.log.max.entries", "3");
+        ShardServer primary = startShard(newBuilding(), 0);
+        ShardServer standby = startShard(newBuilding(), 0);
+        coordinator = coordinatorFor(primary, standby);
+
+        for (int i = 0; i < 10; i++) {
+            coordinator.setRequestedTemperature(18 + i);
+        }
+        assertEquals(1, coordinator.getLogSize(PARTITION));
+
+        standby.stop();
+        for (int i = 0; i < 5; i++) {
+            coordinator.addApartment("Tenant " + i);
+        }
+        assertEquals(3, coordinator.getLogSize(PARTITION));
+
+        // The restarted standby needs writes that were trimmed, so reads stay on the primary
+        Building restarted = newBuilding();
+        startShard(restarted, standby.getPort());
+        assertEquals(7, coordinator.getRooms().size());
+        assertEquals(2, restarted.getRooms().size());
+        assertTrue(coordinator.status().get(1).contains("restart required"));
+    }
+
+    /** Builds the initial rooms every endpoint of the partition is launched with */
+    private static Building newBuilding() {
+        Building building = new Building(25.0);
+        building.addRoom(new Apartment("Resident 1", 1));
+        building.addRoom(new Apartment("Resident 2", 2));
+        return building;
+    }
+
+    private ShardServer startShard(Building building, int port) throws IOException {
+        ShardServer server = new ShardServer(PARTITION, building, port);
+        server.start();
+        servers.add(server);
+        return server;
+    }
+
+    /**
+     * Starts a fake shard with no rooms that rejects every room addition.
+     * @return The port it listens on
+     */
+    private int startRejectingShard() throws IOException {
+        rejectingShard = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            while (!rejectingShard.isClosed()) {
+                try (Socket socket = rejectingShard.accept();
+                     DataInputStream in = new DataInputStream(socket.getInputStream());
+                     DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+                    while (true) {
+                        answerRejecting(in.readByte(), in, out);
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    // Coordinator disconnected or the test is over
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return rejectingShard.getLocalPort();
+    }
+
+    private static void answerRejecting(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case ShardProtocol.OP_PING:
+                out.writeByte(ShardProtocol.STATUS_OK);
+                out.writeInt(ShardProtocol.VERSION);
+                out.writeInt(PARTITION);
+                out.writeInt(0);
+                out.writeLong(0);
+                out.writeInt(0);
+                break;
+            case ShardProtocol.OP_ADD_APARTMENT:
+                in.readLong();
+                in.readInt();
+                in.readUTF();
+                out.writeByte(ShardProtocol.STATUS_ERROR);
+                out.writeUTF("Rejected");
+                break;
+            case ShardProtocol.OP_GET_ROOM:
+                in.readInt();
+                out.writeByte(ShardProtocol.STATUS_NOT_FOUND);
+                break;
+            case ShardProtocol.OP_LIST_ROOMS:
+                out.writeByte(ShardProtocol.STATUS_OK);
+                out.writeInt(0);
+                break;
+            default:
+                throw new IOException("Unexpected opcode " + op);
+        }
+    }
+
+    private static Coordinator coordinatorFor(ShardServer... shards) {
+        Coordinator coordinator = new Coordinator();
+        for (ShardServer shard : shards) {
+            coordinator.addShard(PARTITION, "127.0.0.1", shard.getPort());
+        }
+        return coordinator;
+    }
+}
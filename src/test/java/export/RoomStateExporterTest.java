@@ -0,0 +1,144 @@
+package export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import models.Apartment;
+import models.Building;
+import models.Room;
+
+public class RoomStateExporterTest {
+    private static final int CAPACITY = 4;
+
+    private Path path;
+    private Building building;
+    private RoomStateExporter exporter;
+
+    @Before
+    public void setUp() throws IOException {
+        path = Files.createTempFile("room-state", ".dat");
+        building = new Building(25.0);
+        addRoom(new Apartment("Resident 1", 1));
+        addRoom(new Apartment("Resident 2", 2));
+        exporter = new RoomStateExporter(building, path, CAPACITY);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        exporter.stop();
+        for (Room room : building.getRooms()) {
+            room.stopTemperatureAdjustment();
+        }
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void removedRoomFreesItsSlotForTheNextRoom() throws IOException {
+        Room first = building.getRooms().get(0);
+        Room second = building.getRooms().get(1);
+        exporter.publish();
+        try (RoomStateReader reader = new RoomStateReader(path)) {
+            assertEquals(CAPACITY, reader.getCapacity());
+            assertEquals(1, reader.getPublishSequence());
+            assertEquals(2, reader.getSlotCount());
+            assertEquals(first.getId(), reader.read(0).getRoomId());
+            assertEquals(second.getId(), reader.read(1).getRoomId());
+
+            building.removeRoom(first);
+            first.stopTemperatureAdjustment();
+            exporter.publish();
+            assertEquals(2, reader.getPublishSequence());
+            assertNull(reader.read(0));
+            assertEquals(1, reader.readAll().size());
+
+            Room third = addRoom(new Apartment("Resident 3", 3));
+            exporter.publish();
+            assertEquals(third.getId(), reader.read(0).getRoomId());
+            assertEquals(second.getId(), reader.read(1).getRoomId());
+            assertEquals(2, reader.getSlotCount());
+        }
+    }
+
+    @Test
+    public void secondExporterOnSameFileFails() {
+        try {
+            new RoomStateExporter(building, path, CAPACITY);
+            fail("Expected the file lock to be held");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("already being exported"));
+        }
+    }
+
+    @Test
+    public void recordStuckMidWriteFailsOnceExporterStopsPublishing() throws IOException {
+        exporter.publish();
+        try (RoomStateReader reader = new RoomStateReader(path, 50);
+             RandomAccessFile raw = new RandomAccessFile(path.toFile(), "rw")) {
+            MappedByteBuffer buffer = raw.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raw.length());
+            beginWrite(buffer, 0);
+            RoomStateLayout.LONG.setRelease(buffer, RoomStateLayout.HEADER_PUBLISH_TIME, System.currentTimeMillis() - 1000);
+            try {
+                reader.read(0);
+                fail("Expected the stuck record to be reported");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().contains("Slot 0"));
+            }
+        }
+    }
+
+    @Test
+    public void preemptedWriterIsWaitedFor() throws Exception {
+        exporter.publish();
+        try (RoomStateReader reader = new RoomStateReader(path, 60_000);
+             RandomAccessFile raw = new RandomAccessFile(path.toFile(), "rw")) {
+            MappedByteBuffer buffer = raw.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raw.length());
+            long version = beginWrite(buffer, 0);
+            // Resumes well after the reader's 100 ms stall check
+            Thread writer = new Thread(() -> {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                RoomStateLayout.LONG.setRelease(buffer, RoomStateLayout.recordOffset(0) + RoomStateLayout.RECORD_VERSION,
+                        version + 2);
+            });
+            writer.start();
+            RoomState state = reader.read(0);
+            writer.join();
+            assertNotNull(state);
+            assertEquals(building.getRooms().get(0).getId(), state.getRoomId());
+        }
+    }
+
+    private Room addRoom(Room room) {
+        room.stopTemperatureAdjustment();
+        building.addRoom(room);
+        return room;
+    }
+
+    /**
+     * Marks a record as mid-write, as an exporter does before changing it.
+     * @return The record's stable version before the write began
+     */
+    private static long beginWrite(MappedByteBuffer buffer, int slot) {
+        int offset = RoomStateLayout.recordOffset(slot) + RoomStateLayout.RECORD_VERSION;
+        long version = (long) RoomStateLayout.LONG.getAcquire(buffer, offset);
+        RoomStateLayout.LONG.setRelease(buffer, offset, version + 1);
+        return version;
+    }
+}
@@ -0,0 +1,47 @@
+package loadtest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+    @Test
+    public void smallValuesAreExact() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 1; i <= 100; i++) {
+            recorder.record(i);
+        }
+        assertArrayEquals(new long[] {50, 90, 99, 100}, recorder.percentiles(50, 90, 99, 100));
+        assertEquals(100, recorder.getCount());
+        assertEquals(5050, recorder.getTotal());
+    }
+
+    @Test
+    public void largeValuesStayWithinBucketPrecision() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (long value = 1000; value <= 1_000_000; value += 1000) {
+            recorder.record(value);
+        }
+        long p50 = recorder.percentiles(50)[0];
+        assertTrue("p50 " + p50, p50 >= 500_000 && p50 <= 500_000 * 65 / 64);
+        // The maximum is tracked exactly
+        assertEquals(1_000_000, recorder.percentiles(100)[0]);
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        long[] values = {0, 127, 128, 129, 255, 256, 1L << 40, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyRecorder.bucketIndex(value);
+            assertTrue(value + " above its bucket", value <= LatencyRecorder.bucketUpperBound(bucket));
+            assertTrue(value + " below its bucket", bucket == 0 || value > LatencyRecorder.bucketUpperBound(bucket - 1));
+        }
+    }
+
+    @Test
+    public void emptyRecorderReportsZeros() {
+        assertArrayEquals(new long[] {0, 0}, new LatencyRecorder().percentiles(50, 99));
+    }
+}
@@ -0,0 +1,116 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import utils.TickScheduler.OverrunPolicy;
+
+public class TickSchedulerTest {
+    private static final long PERIOD = 1_000_000_000L;
+
+    @After
+    public void tearDown() {
+        System.clearProperty("scheduler.degrade.max.factor");
+        System.clearProperty("scheduler.degrade.recovery.ticks");
+    }
+
+    @Test
+    public void skipKeepsJitterOfOnTimeTick() {
+        // Started 30 ms late after a tick that was on time
+        assertEquals(PERIOD + 30_000_000L,
+                TickScheduler.accountedNanos(OverrunPolicy.SKIP, PERIOD + 30_000_000L, 30_000_000L, PERIOD));
+    }
+
+    @Test
+    public void skipKeepsShortIntervalAfterLateTick() {
+        // Previous tick was 40 ms late, this one on time
+        assertEquals(PERIOD - 40_000_000L,
+                TickScheduler.accountedNanos(OverrunPolicy.SKIP, PERIOD - 40_000_000L, 0, PERIOD));
+    }
+
+    @Test
+    public void skipDropsOnlyWholeMissedPeriods() {
+        // Two and a half periods late after an on-time tick
+        long lag = 2 * PERIOD + PERIOD / 2;
+        assertEquals(PERIOD + PERIOD / 2,
+                TickScheduler.accountedNanos(OverrunPolicy.SKIP, PERIOD + lag, lag, PERIOD));
+    }
+
+    @Test
+    public void mergeAccountsForAllElapsedTime() {
+        long lag = 3 * PERIOD;
+        assertEquals(PERIOD + lag,
+                TickScheduler.accountedNanos(OverrunPolicy.MERGE, PERIOD + lag, lag, PERIOD));
+        assertEquals(PERIOD + lag,
+                TickScheduler.accountedNanos(OverrunPolicy.DEGRADE, PERIOD + lag, lag, PERIOD));
+    }
+
+    @Test
+    public void countsOnlyTicksMissingAWholePeriodAsOverruns() {
+        TickScheduler scheduler = started(OverrunPolicy.MERGE);
+        scheduler.advance(PERIOD + PERIOD / 2);
+        assertEquals(0, scheduler.getOverrunCount());
+        scheduler.advance(4 * PERIOD);
+        assertEquals(1, scheduler.getOverrunCount());
+        assertEquals(3, scheduler.getTickCount());
+        assertEquals(2000, scheduler.getMaxLagMillis(), 0);
+    }
+
+    @Test
+    public void stepsOverMissedDeadlinesWithoutBurst() {
+        TickScheduler scheduler = started(OverrunPolicy.MERGE);
+        // Stalled for three and a half periods past the deadline at 1s
+        long now = PERIOD + 3 * PERIOD + PERIOD / 2;
+        assertEquals(now, scheduler.advance(now));
+        assertEquals(5 * PERIOD, scheduler.getNextDeadlineNanos());
+
+        // The next tick runs on its deadline rather than immediately
+        scheduler.advance(5 * PERIOD);
+        assertEquals(0, scheduler.getLastLagMillis(), 0);
+        assertEquals(6 * PERIOD, scheduler.getNextDeadlineNanos());
+    }
+
+    @Test
+    public void degradeDoublesIntervalUpToMaxFactor() {
+        System.setProperty("scheduler.degrade.max.factor", "4");
+        TickScheduler scheduler = started(OverrunPolicy.DEGRADE);
+        long now = 0;
+        long[] expectedPeriods = {2 * PERIOD, 4 * PERIOD, 4 * PERIOD};
+        for (long expected : expectedPeriods) {
+            // Each tick starts a whole interval late
+            now = scheduler.getNextDeadlineNanos() + (long) (scheduler.getCurrentPeriodMillis() * 1e6);
+            scheduler.advance(now);
+            assertEquals(expected / 1e6, scheduler.getCurrentPeriodMillis(), 0);
+            assertEquals(now + expected, scheduler.getNextDeadlineNanos());
+        }
+        assertTrue(scheduler.isDegraded());
+    }
+
+    @Test
+    public void degradeRecoversAfterOnTimeTicks() {
+        System.setProperty("scheduler.degrade.recovery.ticks", "3");
+        TickScheduler scheduler = started(OverrunPolicy.DEGRADE);
+        scheduler.advance(2 * PERIOD);
+        assertEquals(2000, scheduler.getCurrentPeriodMillis(), 0);
+
+        for (int i = 0; i < 2; i++) {
+            scheduler.advance(scheduler.getNextDeadlineNanos());
+        }
+        assertEquals(2000, scheduler.getCurrentPeriodMillis(), 0);
+        scheduler.advance(scheduler.getNextDeadlineNanos());
+        assertEquals(1000, scheduler.getCurrentPeriodMillis(), 0);
+        assertFalse(scheduler.isDegraded());
+    }
+
+    /** A scheduler with a 1s period whose first tick has run on time at 0 */
+    private static TickScheduler started(OverrunPolicy policy) {
+        TickScheduler scheduler = new TickScheduler(1.0, policy, elapsedSeconds -> { });
+        scheduler.begin(0);
+        scheduler.advance(0);
+        return scheduler;
+    }
+}